@@ -0,0 +1,97 @@
+/**
+ * Coloring, Version 0.1
+ * New Bulgarian University
+ *
+ * Copyright (c) 2018 Boyana Kantarska
+ */
+
+package com.gmail.boianaradkova;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Whole board operations, which run in parallel stripes on large boards.
+ * Run with -Djava.util.concurrent.ForkJoinPool.common.parallelism=N to see
+ * how they scale with the cores.
+ *
+ * @author Boyana Kantarska
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+public class BoardBenchmark {
+	/** Board width and height. */
+	@Param({ "500", "2000", "4000" })
+	private int size;
+
+	/** Number of colors on the board. */
+	@Param({ "16" })
+	private int numOfColors;
+
+	/** Board to copy and scan. */
+	private Board board = null;
+
+	/** Prepare the board. */
+	@Setup
+	public void prepare() {
+		/* The same boards for every run. */
+		RandomSource.seed(1);
+
+		board = new Board(size, size, numOfColors);
+	}
+
+	/**
+	 * Random board.
+	 *
+	 * @return Board for the black hole.
+	 */
+	@Benchmark
+	public Board generate() {
+		return new Board(size, size, numOfColors);
+	}
+
+	/**
+	 * Copy of the board.
+	 *
+	 * @return Board for the black hole.
+	 */
+	@Benchmark
+	public Board copy() {
+		return new Board(board);
+	}
+
+	/**
+	 * Cells of each color.
+	 *
+	 * @return Counts for the black hole.
+	 */
+	@Benchmark
+	public int[] histogram() {
+		return board.getHistogram();
+	}
+
+	/**
+	 * Number of regions.
+	 *
+	 * @return Regions.
+	 */
+	@Benchmark
+	public int countRegions() {
+		return board.countRegions();
+	}
+}
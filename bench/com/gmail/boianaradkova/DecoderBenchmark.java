@@ -0,0 +1,94 @@
+/**
+ * Coloring, Version 0.1
+ * New Bulgarian University
+ *
+ * Copyright (c) 2018 Boyana Kantarska
+ */
+
+package com.gmail.boianaradkova;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Parsing of the game state messages on the client side, as done by the
+ * random client for every turn.
+ *
+ * @author Boyana Kantarska
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DecoderBenchmark {
+	/** Board width and height. */
+	@Param({ "10", "100", "1000" })
+	private int size;
+
+	/** 1 for full text and 3 for binary. */
+	@Param({ "1", "3" })
+	private int protocol;
+
+	/** Received message, read again by every invocation. */
+	private ByteArrayInputStream in = null;
+
+	/** Reused decoder. */
+	private ProtocolDecoder decoder = null;
+
+	/** Prepare the message. */
+	@Setup
+	public void prepare() {
+		/* The same boards for every run. */
+		RandomSource.seed(1);
+
+		Game game = new Game();
+		game.setVerbose(false);
+		for (int p = 0; p < 4; p++) {
+			game.addPlayer(new Player("" + p, null));
+		}
+		game.init(new Board(size, size, 16));
+		game.beginTurn(game.getPlayers().firstElement());
+
+		ByteBuffer message = ByteBuffer.allocate(Math.max(game.textSize(), 4 * 11 + game.getBoard().packedSize()));
+		if (protocol == 3) {
+			game.toBinary(message);
+		} else {
+			game.toText(message);
+		}
+
+		in = new ByteArrayInputStream(Arrays.copyOf(message.array(), message.position()));
+		decoder = new ProtocolDecoder(in);
+	}
+
+	/**
+	 * Parse one message.
+	 *
+	 * @return Board for the black hole.
+	 *
+	 * @throws IOException Never, the message is in memory.
+	 */
+	@Benchmark
+	public Board read() throws IOException {
+		in.reset();
+		decoder.read(protocol);
+
+		return decoder.getBoard();
+	}
+}
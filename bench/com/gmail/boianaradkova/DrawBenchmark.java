@@ -0,0 +1,83 @@
+/**
+ * Coloring, Version 0.1
+ * New Bulgarian University
+ *
+ * Copyright (c) 2018 Boyana Kantarska
+ */
+
+package com.gmail.boianaradkova;
+
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Drawing of the whole board into an offscreen image of the window size.
+ *
+ * @author Boyana Kantarska
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+public class DrawBenchmark {
+	/** Width and height of the image. */
+	private static final int PIXELS = 800;
+
+	/** Board width and height. */
+	@Param({ "10", "100", "1000" })
+	private int size;
+
+	/** Drawing of the board. */
+	private BoardRenderer renderer = null;
+
+	/** Offscreen image. */
+	private BufferedImage image = null;
+
+	/** Graphics of the image. */
+	private Graphics2D g = null;
+
+	/** Prepare the board and the image. */
+	@Setup
+	public void prepare() {
+		/* The same boards for every run. */
+		RandomSource.seed(1);
+
+		renderer = new BoardRenderer(new Board(size, size, 16));
+		image = new BufferedImage(PIXELS, PIXELS, BufferedImage.TYPE_INT_RGB);
+		g = image.createGraphics();
+	}
+
+	/** Release the graphics. */
+	@TearDown
+	public void release() {
+		g.dispose();
+	}
+
+	/**
+	 * Draw the board.
+	 *
+	 * @return Image for the black hole.
+	 */
+	@Benchmark
+	public BufferedImage draw() {
+		renderer.draw(g, PIXELS, PIXELS);
+
+		return image;
+	}
+}
@@ -0,0 +1,144 @@
+/**
+ * Coloring, Version 0.1
+ * New Bulgarian University
+ *
+ * Copyright (c) 2018 Boyana Kantarska
+ */
+
+package com.gmail.boianaradkova;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Flood fill of the different engines on fresh copies of the same random
+ * board. The first change of a copy also pays for the indexes an engine
+ * builds lazily, while the turns are measured after the indexes are ready.
+ *
+ * @author Boyana Kantarska
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xss64m")
+public class FloodBenchmark {
+	/** Board width and height. */
+	@Param({ "100", "500", "1000" })
+	private int size;
+
+	/** Number of colors on the board. */
+	@Param({ "4", "16", "256" })
+	private int numOfColors;
+
+	/** Flood fill engine, by name because the enum is package private. */
+	@Param({ "RECURSIVE", "SCANLINE", "REGIONS", "BITPLANE" })
+	private String engine;
+
+	/** Random board shared by all invocations. */
+	private Board template = null;
+
+	/** Prepare the random board. */
+	@Setup(Level.Trial)
+	public void prepare() {
+		/* The same boards for every run. */
+		RandomSource.seed(1);
+
+		template = new Board(size, size, numOfColors);
+	}
+
+	/**
+	 * Fresh copy of the random board.
+	 *
+	 * @return Board.
+	 */
+	private Board copy() {
+		Board board = new Board(template);
+		board.setFloodEngine(FloodEngine.valueOf(engine));
+
+		return board;
+	}
+
+	/** Board copy for each invocation, without indexes. */
+	@State(Scope.Thread)
+	public static class Cold {
+		/** Board for the next invocation. */
+		private Board board = null;
+
+		/**
+		 * Copy the random board.
+		 *
+		 * @param benchmark Benchmark parameters.
+		 */
+		@Setup(Level.Invocation)
+		public void copy(FloodBenchmark benchmark) {
+			board = benchmark.copy();
+		}
+	}
+
+	/** Board copy for each invocation, with the indexes built. */
+	@State(Scope.Thread)
+	public static class Warm {
+		/** Board for the next invocation. */
+		private Board board = null;
+
+		/**
+		 * Copy the random board and play a first change.
+		 *
+		 * @param benchmark Benchmark parameters.
+		 */
+		@Setup(Level.Invocation)
+		public void copy(FloodBenchmark benchmark) {
+			board = benchmark.copy();
+			board.change(0, 0, 1 + board.getColorIndex(0, 0) % benchmark.numOfColors);
+		}
+	}
+
+	/**
+	 * Change the color of the corner region.
+	 *
+	 * @param state Fresh board.
+	 *
+	 * @return Board for the black hole.
+	 */
+	@Benchmark
+	public Board change(Cold state) {
+		Board board = state.board;
+		board.change(0, 0, 1 + board.getColorIndex(0, 0) % numOfColors);
+
+		return board;
+	}
+
+	/**
+	 * Ten turns of two players in the opposite corners.
+	 *
+	 * @param state Board after a first change.
+	 *
+	 * @return Board for the black hole.
+	 */
+	@Benchmark
+	public Board turns(Warm state) {
+		Board board = state.board;
+		int last = size - 1;
+
+		for (int turn = 0; turn < 10; turn++) {
+			board.change(0, 0, 1 + (2 * turn) % numOfColors);
+			board.change(last, last, 1 + (2 * turn + 1) % numOfColors);
+		}
+
+		return board;
+	}
+}
@@ -0,0 +1,113 @@
+/**
+ * Coloring, Version 0.1
+ * New Bulgarian University
+ *
+ * Copyright (c) 2018 Boyana Kantarska
+ */
+
+package com.gmail.boianaradkova;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Game state messages of the server in the text and the binary protocol.
+ *
+ * @author Boyana Kantarska
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SerializationBenchmark {
+	/** Board width and height. */
+	@Param({ "10", "100", "1000" })
+	private int size;
+
+	/** Number of colors on the board. */
+	@Param({ "8", "256" })
+	private int numOfColors;
+
+	/** Game with four players. */
+	private Game game = null;
+
+	/** Reused message buffer. */
+	private ByteBuffer buffer = null;
+
+	/** Prepare the game. */
+	@Setup
+	public void prepare() {
+		/* The same boards for every run. */
+		RandomSource.seed(1);
+
+		game = new Game();
+		game.setVerbose(false);
+		for (int p = 0; p < 4; p++) {
+			game.addPlayer(new Player("" + p, null));
+		}
+		game.init(new Board(size, size, numOfColors));
+		game.beginTurn(game.getPlayers().firstElement());
+
+		buffer = ByteBuffer.allocate(Math.max(game.textSize(), 4 * 11 + game.getBoard().packedSize()));
+	}
+
+	/**
+	 * Board as string.
+	 *
+	 * @return Text for the black hole.
+	 */
+	@Benchmark
+	public String boardToString() {
+		return game.getBoard().toString();
+	}
+
+	/**
+	 * Game state as string.
+	 *
+	 * @return Text for the black hole.
+	 */
+	@Benchmark
+	public String gameToString() {
+		return game.toString();
+	}
+
+	/**
+	 * Game state as ASCII bytes.
+	 *
+	 * @return Buffer for the black hole.
+	 */
+	@Benchmark
+	public ByteBuffer gameToText() {
+		buffer.clear();
+		game.toText(buffer);
+
+		return buffer;
+	}
+
+	/**
+	 * Game state as binary frame.
+	 *
+	 * @return Buffer for the black hole.
+	 */
+	@Benchmark
+	public ByteBuffer gameToBinary() {
+		buffer.clear();
+		game.toBinary(buffer);
+
+		return buffer;
+	}
+}
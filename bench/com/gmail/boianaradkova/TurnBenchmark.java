@@ -0,0 +1,108 @@
+/**
+ * Coloring, Version 0.1
+ * New Bulgarian University
+ *
+ * Copyright (c) 2018 Boyana Kantarska
+ */
+
+package com.gmail.boianaradkova;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Whole headless turns as played by the server: the game state message for
+ * the player in the asked protocol, the choice of the random strategy and
+ * the move.
+ *
+ * @author Boyana Kantarska
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TurnBenchmark {
+	/** Number of players. */
+	private static final int PLAYERS = 4;
+
+	/** Board width and height. */
+	@Param({ "10", "100", "500" })
+	private int size;
+
+	/** Protocol of the players. */
+	@Param({ "1", "2", "3" })
+	private int protocol;
+
+	/** Played game. */
+	private Game game = null;
+
+	/** Strategy of all players. */
+	private final Strategy strategy = new RandomStrategy();
+
+	/** Player on turn. */
+	private int next = 0;
+
+	/** New game for each iteration. */
+	@Setup(Level.Iteration)
+	public void prepare() {
+		/* The same boards for every run. */
+		RandomSource.seed(1);
+
+		game = new Game();
+		game.setVerbose(false);
+		for (int p = 0; p < PLAYERS; p++) {
+			Player player = new Player("" + p, null);
+			player.parseReply("0 " + protocol);
+			game.addPlayer(player);
+		}
+		game.init(new Board(size, size, 2 * PLAYERS));
+
+		next = 0;
+	}
+
+	/**
+	 * Play one turn.
+	 *
+	 * @return Message for the black hole.
+	 */
+	@Benchmark
+	public ByteBuffer turn() {
+		Player player = game.getPlayers().elementAt(next);
+		next = (next + 1) % PLAYERS;
+
+		ByteBuffer message = game.beginTurn(player);
+		game.endTurn(player, strategy.choose(game, player));
+
+		return message;
+	}
+
+	/**
+	 * Play a whole simulated game on a random board.
+	 *
+	 * @return Number of turns.
+	 */
+	@Benchmark
+	@BenchmarkMode(Mode.Throughput)
+	@OutputTimeUnit(TimeUnit.SECONDS)
+	public int game() {
+		Simulation simulation = new Simulation(PLAYERS, 10000, strategy);
+		simulation.setStopWithoutGrowth(true);
+
+		return simulation.playGame();
+	}
+}
@@ -0,0 +1,71 @@
+/**
+ * Coloring, Version 0.1
+ * New Bulgarian University
+ *
+ * Copyright (c) 2018 Boyana Kantarska
+ */
+
+package com.gmail.boianaradkova;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Decimal numbers of the text protocol written directly as ASCII bytes.
+ *
+ * @author Boyana Kantarska
+ */
+final class Ascii {
+	/** Utility class. */
+	private Ascii() {
+	}
+
+	/**
+	 * Number of characters of a decimal number.
+	 *
+	 * @param value Number.
+	 *
+	 * @return Characters with the sign.
+	 */
+	static int size(int value) {
+		if (value == Integer.MIN_VALUE) {
+			return 11;
+		}
+
+		int size = value < 0 ? 2 : 1;
+		for (value = Math.abs(value); value >= 10; value /= 10) {
+			size++;
+		}
+
+		return size;
+	}
+
+	/**
+	 * Write a decimal number.
+	 *
+	 * @param buffer Buffer with enough remaining space.
+	 * @param value  Number.
+	 */
+	static void put(ByteBuffer buffer, int value) {
+		if (value == Integer.MIN_VALUE) {
+			buffer.put(Integer.toString(value).getBytes(StandardCharsets.US_ASCII));
+			return;
+		}
+
+		int size = size(value);
+		int position = buffer.position();
+
+		if (value < 0) {
+			buffer.put(position, (byte) '-');
+			value = -value;
+		}
+
+		int i = position + size;
+		do {
+			buffer.put(--i, (byte) ('0' + value % 10));
+			value /= 10;
+		} while (value > 0);
+
+		buffer.position(position + size);
+	}
+}
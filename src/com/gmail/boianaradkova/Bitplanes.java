@@ -0,0 +1,336 @@
+/**
+ * Coloring, Version 0.1
+ * New Bulgarian University
+ *
+ * Copyright (c) 2018 Boyana Kantarska
+ */
+
+package com.gmail.boianaradkova;
+
+import java.util.Arrays;
+
+/**
+ * One bit plane of each color, with a bit for each cell in long words. Each
+ * row starts in a new word. A region is grown with word operations over 64
+ * cells at once: inside a row the runs of the plane are filled with shifts,
+ * and the rows above and below are seeded with AND of the region and their
+ * plane. Only the rows whose part of the region grows are visited again.
+ *
+ * @author Boyana Kantarska
+ */
+final class Bitplanes {
+	/** Cells of the board, kept up to date by the planes. */
+	private final Grid grid;
+
+	/** Board width. */
+	private final int columns;
+
+	/** Board height. */
+	private final int rows;
+
+	/** Words in each row. */
+	private final int words;
+
+	/** Plane of each color, null for colors which are not on the board. */
+	private final long planes[][];
+
+	/** Bits of the last grown region. */
+	private final long region[];
+
+	/** Rows which should be grown again because a neighbor row has grown. */
+	private final boolean pending[];
+
+	/** First row of the last grown region. */
+	private int top = 0;
+
+	/** Last row of the last grown region. */
+	private int bottom = -1;
+
+	/**
+	 * Build the planes of a board.
+	 *
+	 * @param grid        Cells of the board.
+	 * @param columns     Board width.
+	 * @param numOfColors Number of colors on the board.
+	 */
+	Bitplanes(Grid grid, int columns, int numOfColors) {
+		this.grid = grid;
+		this.columns = columns;
+		this.rows = grid.size() / columns;
+		this.words = (columns + 63) >>> 6;
+
+		planes = new long[numOfColors + 1][];
+		region = new long[rows * words];
+		pending = new boolean[rows];
+
+		for (int index = 0; index < grid.size(); index++) {
+			int x = index % columns;
+			plane(grid.get(index))[index / columns * words + (x >>> 6)] |= 1L << x;
+		}
+	}
+
+	/**
+	 * Plane of a color, created if the color is not on the board yet.
+	 *
+	 * @param color Color.
+	 *
+	 * @return Plane.
+	 */
+	private long[] plane(int color) {
+		if (planes[color] == null) {
+			planes[color] = new long[rows * words];
+		}
+
+		return planes[color];
+	}
+
+	/**
+	 * Grow seed bits towards the higher bits through the runs of a mask.
+	 *
+	 * @param seeds Seed bits inside the mask.
+	 * @param mask  Allowed bits.
+	 *
+	 * @return Filled bits.
+	 */
+	private static long fillUp(long seeds, long mask) {
+		seeds |= mask & (seeds << 1);
+		mask &= mask << 1;
+		seeds |= mask & (seeds << 2);
+		mask &= mask << 2;
+		seeds |= mask & (seeds << 4);
+		mask &= mask << 4;
+		seeds |= mask & (seeds << 8);
+		mask &= mask << 8;
+		seeds |= mask & (seeds << 16);
+		mask &= mask << 16;
+		seeds |= mask & (seeds << 32);
+
+		return seeds;
+	}
+
+	/**
+	 * Grow seed bits towards the lower bits through the runs of a mask.
+	 *
+	 * @param seeds Seed bits inside the mask.
+	 * @param mask  Allowed bits.
+	 *
+	 * @return Filled bits.
+	 */
+	private static long fillDown(long seeds, long mask) {
+		seeds |= mask & (seeds >>> 1);
+		mask &= mask >>> 1;
+		seeds |= mask & (seeds >>> 2);
+		mask &= mask >>> 2;
+		seeds |= mask & (seeds >>> 4);
+		mask &= mask >>> 4;
+		seeds |= mask & (seeds >>> 8);
+		mask &= mask >>> 8;
+		seeds |= mask & (seeds >>> 16);
+		mask &= mask >>> 16;
+		seeds |= mask & (seeds >>> 32);
+
+		return seeds;
+	}
+
+	/**
+	 * Seed a row of the region from its neighbor rows and fill the runs of
+	 * the plane which contain the seeds.
+	 *
+	 * @param plane Plane of the region color.
+	 * @param row   Row.
+	 *
+	 * @return True if the region grows in the row.
+	 */
+	private boolean grow(long plane[], int row) {
+		int base = row * words;
+		boolean grown = false;
+
+		/* Towards the higher columns, carrying over the word borders. */
+		long carry = 0;
+		for (int w = 0; w < words; w++) {
+			int i = base + w;
+			long seeds = region[i] | carry;
+			if (row > 0) {
+				seeds |= region[i - words];
+			}
+			if (row < rows - 1) {
+				seeds |= region[i + words];
+			}
+
+			seeds &= plane[i];
+			if (seeds == 0) {
+				carry = 0;
+				continue;
+			}
+
+			long filled = fillUp(seeds, plane[i]);
+			carry = filled >>> 63;
+
+			if (filled != region[i]) {
+				region[i] |= filled;
+				grown = true;
+			}
+		}
+
+		/* Back towards the lower columns, which completes every run. */
+		carry = 0;
+		for (int w = words - 1; w >= 0; w--) {
+			int i = base + w;
+			long seeds = region[i] | (carry & plane[i]);
+			if (seeds == 0) {
+				carry = 0;
+				continue;
+			}
+
+			long filled = fillDown(seeds, plane[i]);
+			carry = (filled & 1) << 63;
+
+			if (filled != region[i]) {
+				region[i] = filled;
+				grown = true;
+			}
+		}
+
+		return grown;
+	}
+
+	/**
+	 * Grow the region of a cell into the region array.
+	 *
+	 * @param index Cell index.
+	 *
+	 * @return Plane of the region color.
+	 */
+	private long[] fill(int index) {
+		long plane[] = planes[grid.get(index)];
+
+		/* Only the rows of the previous region are not clear. */
+		if (top <= bottom) {
+			Arrays.fill(region, top * words, (bottom + 1) * words, 0);
+		}
+
+		int row = index / columns;
+		int x = index % columns;
+		region[row * words + (x >>> 6)] = 1L << x;
+		top = bottom = row;
+
+		/*
+		 * Rows are grown in sweeps down and up the board, so the region can
+		 * spread over many rows in one sweep. A row is grown again only when
+		 * one of its neighbor rows has grown.
+		 */
+		pending[row] = true;
+		int first = row, last = row;
+		boolean seed = true;
+
+		while (first <= last) {
+			int from = first, to = last;
+			first = rows;
+			last = -1;
+
+			for (int pass = 0; pass < 2; pass++) {
+				int step = pass == 0 ? 1 : -1;
+
+				for (row = pass == 0 ? from : to; row >= from && row <= to; row += step) {
+					if (pending[row] == false) {
+						continue;
+					}
+					pending[row] = false;
+
+					/* The neighbors of the seed row are grown even if it does not grow. */
+					if (grow(plane, row) == false && seed == false) {
+						continue;
+					}
+					seed = false;
+
+					top = Math.min(top, row);
+					bottom = Math.max(bottom, row);
+
+					for (int next = row - 1; next <= row + 1; next += 2) {
+						if (next < 0 || next >= rows || pending[next] == true) {
+							continue;
+						}
+						pending[next] = true;
+
+						/* Rows ahead of the sweep are grown in the same sweep. */
+						if (next == row + step) {
+							from = Math.min(from, next);
+							to = Math.max(to, next);
+						} else {
+							first = Math.min(first, next);
+							last = Math.max(last, next);
+						}
+					}
+				}
+			}
+		}
+
+		return plane;
+	}
+
+	/**
+	 * Number of cells in the region of a cell.
+	 *
+	 * @param index Cell index.
+	 *
+	 * @return Region size.
+	 */
+	public int size(int index) {
+		fill(index);
+
+		int size = 0;
+		for (int i = top * words; i < (bottom + 1) * words; i++) {
+			size += Long.bitCount(region[i]);
+		}
+
+		return size;
+	}
+
+	/**
+	 * Change the color of the region of a cell.
+	 *
+	 * @param index Cell index.
+	 * @param color New color.
+	 * @param log   Log of the changed cells or null.
+	 * @param dirty Box of the changed cells.
+	 */
+	public void change(int index, int color, ChangeLog log, DirtyBox dirty) {
+		if (grid.get(index) == color) {
+			return;
+		}
+
+		long from[] = fill(index);
+		long to[] = plane(color);
+
+		for (int row = top; row <= bottom; row++) {
+			int left = columns, right = -1;
+
+			for (int w = 0; w < words; w++) {
+				int i = row * words + w;
+				long bits = region[i];
+				if (bits == 0) {
+					continue;
+				}
+
+				from[i] &= ~bits;
+				to[i] |= bits;
+
+				left = Math.min(left, (w << 6) + Long.numberOfTrailingZeros(bits));
+				right = Math.max(right, (w << 6) + 63 - Long.numberOfLeadingZeros(bits));
+
+				for (; bits != 0; bits &= bits - 1) {
+					int cell = row * columns + (w << 6) + Long.numberOfTrailingZeros(bits);
+
+					grid.set(cell, color);
+					if (log != null) {
+						log.add(cell);
+					}
+				}
+			}
+
+			if (right >= 0) {
+				dirty.add(left, right, row);
+			}
+		}
+	}
+}
@@ -7,9 +7,10 @@
 
 package com.gmail.boianaradkova;
 
-import java.awt.Color;
-import java.awt.Graphics;
-import java.util.concurrent.atomic.AtomicBoolean;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.random.RandomGenerator;
+import java.util.stream.IntStream;
 
 /**
  * Board with color tiles.
@@ -17,8 +18,11 @@ import java.util.concurrent.atomic.AtomicBoolean;
  * @author Boyana Kantarska
  */
 class Board {
-	/** Lock for synchronization. */
-	private AtomicBoolean locked = new AtomicBoolean(false);
+	/** Boards with fewer cells are generated and scanned by one thread. */
+	private static final int PARALLEL_CELLS = 1 << 18;
+
+	/** Cells in a stripe of rows handled by one task on large boards. */
+	private static final int STRIPE_CELLS = 1 << 16;
 
 	/** Board width. */
 	private int columns = -1;
@@ -29,8 +33,150 @@ class Board {
 	/** Number of colors on the board. */
 	private int numOfColors = -1;
 
-	/** Grid of the board. */
-	private int grid[][] = {};
+	/** Grid of the board, one flat row-major array of cells. */
+	private Grid grid = null;
+
+	/** Index of the regions, built on demand and dropped by other engines. */
+	private Regions regions = null;
+
+	/** Bit planes of the colors, built on demand and dropped by other engines. */
+	private Bitplanes bitplanes = null;
+
+	/** Log of the changed cells, null if the changes are not tracked. */
+	private ChangeLog log = null;
+
+	/** Cells changed since the last repaint. */
+	private DirtyBox dirty = new DirtyBox();
+
+	/** Algorithm used for flooding. */
+	private FloodEngine engine = FloodEngine.byDefault();
+
+	/** Work stack of cell indexes reused between the scanline floods. */
+	private int stack[] = new int[64];
+
+	/**
+	 * Push cell index on the work stack.
+	 * 
+	 * @param top   Current stack size.
+	 * @param index Cell index.
+	 * 
+	 * @return New stack size.
+	 */
+	private int push(int top, int index) {
+		if (top == stack.length) {
+			stack = Arrays.copyOf(stack, stack.length * 2);
+		}
+
+		stack[top] = index;
+
+		return top + 1;
+	}
+
+	/**
+	 * Iterative scanline flooding with a new color. Each popped seed is
+	 * extended left and right to a full span and only one seed per run of
+	 * matching cells is pushed for the rows above and below.
+	 * 
+	 * @param x        Start flooding from coordinate x.
+	 * @param y        Start flooding from coordinate y.
+	 * @param oldColor Old color which should be replaced.
+	 * @param newColor New color for replacement.
+	 * @param record   True if the changed cells go to the log and the dirty
+	 *                 box, false for a change which is undone after it.
+	 * 
+	 * @return Number of changed cells.
+	 */
+	private int scanline(int x, int y, int oldColor, int newColor, boolean record) {
+		int last = grid.size() - columns;
+		int top = push(0, y * columns + x);
+		int count = 0;
+
+		while (top > 0) {
+			int index = stack[--top];
+
+			if (grid.get(index) != oldColor) {
+				continue;
+			}
+
+			int start = index - index % columns;
+			int end = start + columns - 1;
+
+			int left = index;
+			while (left > start && grid.get(left - 1) == oldColor) {
+				left--;
+			}
+
+			int right = index;
+			while (right < end && grid.get(right + 1) == oldColor) {
+				right++;
+			}
+
+			if (record == true) {
+				dirty.add(left - start, right - start, start / columns);
+			}
+			count += right - left + 1;
+
+			boolean above = false;
+			boolean below = false;
+			for (int i = left; i <= right; i++) {
+				grid.set(i, newColor);
+				if (record == true && log != null) {
+					log.add(i);
+				}
+
+				if (i >= columns) {
+					if (grid.get(i - columns) != oldColor) {
+						above = false;
+					} else if (above == false) {
+						top = push(top, i - columns);
+						above = true;
+					}
+				}
+
+				if (i < last) {
+					if (grid.get(i + columns) != oldColor) {
+						below = false;
+					} else if (below == false) {
+						top = push(top, i + columns);
+						below = true;
+					}
+				}
+			}
+		}
+
+		return count;
+	}
+
+	/**
+	 * Size of a region found by flooding it with the unused color zero and
+	 * back again, without any index of the regions. The cells are not
+	 * logged and the board is the same after it.
+	 * 
+	 * @param x X coordinate.
+	 * @param y Y coordinate.
+	 * 
+	 * @return Region size.
+	 */
+	private int measure(int x, int y) {
+		int color = grid.get(y * columns + x);
+
+		/* Zero is not a board color, such a region has no free color to mark it. */
+		if (color == 0) {
+			return new Regions(grid, columns).size(y * columns + x);
+		}
+
+		if (TileFlood.isWorth(grid.size()) == true) {
+			TileFlood tiles = new TileFlood(grid, columns);
+			int size = tiles.change(y * columns + x, 0, null, null);
+			tiles.change(y * columns + x, color, null, null);
+			return size;
+		}
+
+		int size = scanline(x, y, color, 0, false);
+		scanline(x, y, 0, color, false);
+
+		return size;
+	}
 
 	/**
 	 * Recursive flooding with a new color.
@@ -45,7 +191,7 @@ class Board {
 			return;
 		}
 
-		if (x >= grid.length) {
+		if (x >= columns) {
 			return;
 		}
 
@@ -53,15 +199,19 @@ class Board {
 			return;
 		}
 
-		if (y >= grid[x].length) {
+		if (y >= rows) {
 			return;
 		}
 
-		if (grid[x][y] != oldColor) {
+		if (grid.get(y * columns + x) != oldColor) {
 			return;
 		}
 
-		grid[x][y] = newColor;
+		grid.set(y * columns + x, newColor);
+		if (log != null) {
+			log.add(y * columns + x);
+		}
+		dirty.add(x, x, y);
 
 		flood(x - 1, y, oldColor, newColor);
 		flood(x, y - 1, oldColor, newColor);
@@ -75,24 +225,109 @@ class Board {
 	 * @param columns     Board width.
 	 * @param rows        Board height.
 	 * @param numOfColors Number of colors on the board.
+	 * 
+	 * @throws IllegalArgumentException If there is no color to draw.
 	 */
 	public Board(int columns, int rows, int numOfColors) {
-		locked.set(false);
+		this(columns, rows, numOfColors, RandomSource.get());
+	}
+
+	/**
+	 * Constructor with a given random generator.
+	 * 
+	 * @param columns     Board width.
+	 * @param rows        Board height.
+	 * @param numOfColors Number of colors on the board.
+	 * @param random      Generator of the colors arrangement.
+	 * 
+	 * @throws IllegalArgumentException If there is no color to draw.
+	 */
+	public Board(int columns, int rows, int numOfColors, RandomGenerator random) {
+		/* No drawn color would be accepted and the filling would never end. */
+		if (numOfColors < 1) {
+			throw new IllegalArgumentException("Number of colors " + numOfColors + " is less than one");
+		}
 
 		this.columns = columns;
 		this.rows = rows;
 		this.numOfColors = numOfColors;
 
-		grid = new int[columns][rows];
+		grid = Grid.create(columns * rows, numOfColors);
+
+		int stripeRows = stripeRows();
+		int stripes = (rows + stripeRows - 1) / stripeRows;
+
+		if (stripes <= 1) {
+			fill(0, grid.size(), random);
+			return;
+		}
+
+		/*
+		 * Each stripe has its own generator, seeded in order from the given
+		 * one, so the board does not depend on the scheduling of the stripes.
+		 */
+		long seeds[] = new long[stripes];
+		for (int s = 0; s < stripes; s++) {
+			seeds[s] = random.nextLong();
+		}
 
-		/* Random colors arrangement. */
-		for (int i = 0; i < columns; i++) {
-			for (int j = 0; j < rows; j++) {
-				grid[i][j] = 1 + (int) (Math.random() * numOfColors);
+		IntStream.range(0, stripes).parallel().forEach(s -> {
+			int from = s * stripeRows * columns;
+			int to = Math.min(rows, (s + 1) * stripeRows) * columns;
+
+			fill(from, to, RandomSource.create(seeds[s]));
+		});
+	}
+
+	/**
+	 * Random colors arrangement of a range of cells. Each 64 bits draw is
+	 * split into as many color indexes as fit in it and indexes over the
+	 * number of colors are skipped, so the colors stay uniform.
+	 * 
+	 * @param from   First cell index.
+	 * @param to     Cell index after the last one.
+	 * @param random Generator of the colors.
+	 */
+	private void fill(int from, int to, RandomGenerator random) {
+		int bits = 32 - Integer.numberOfLeadingZeros(Math.max(numOfColors - 1, 1));
+		long mask = (1L << bits) - 1;
+
+		int index = from;
+		while (index < to) {
+			long draw = random.nextLong();
+
+			for (int left = 64; left >= bits && index < to; left -= bits, draw >>>= bits) {
+				int value = (int) (draw & mask);
+
+				if (value < numOfColors) {
+					grid.set(index++, 1 + value);
+				}
 			}
 		}
 	}
 
+	/**
+	 * Rows in a stripe handled by one task.
+	 * 
+	 * @return All rows for small boards, so they are handled by one thread.
+	 */
+	private int stripeRows() {
+		if (columns * rows < PARALLEL_CELLS) {
+			return Math.max(rows, 1);
+		}
+
+		return Math.max(1, STRIPE_CELLS / columns);
+	}
+
+	/**
+	 * Number of stripes of rows.
+	 * 
+	 * @return Stripes.
+	 */
+	private int stripes() {
+		return (rows + stripeRows() - 1) / stripeRows();
+	}
+
 	/**
 	 * Constructor.
 	 * 
@@ -102,16 +337,171 @@ class Board {
 	 * @param grid        Board state.
 	 */
 	public Board(int columns, int rows, int numOfColors, int[][] grid) {
-		this(columns, rows, numOfColors);
+		this.columns = columns;
+		this.rows = rows;
+		this.numOfColors = numOfColors;
+
+		this.grid = Grid.create(columns * rows, numOfColors);
 
-		/* Random colors arrangement. */
-		for (int i = 0; i < columns; i++) {
-			for (int j = 0; j < rows; j++) {
-				this.grid[i][j] = grid[i][j];
+		/* Given colors arrangement, without a random one before it. */
+		for (int j = 0; j < rows; j++) {
+			for (int i = 0; i < columns; i++) {
+				this.grid.set(j * columns + i, grid[i][j]);
 			}
 		}
 	}
 
+	/**
+	 * Copy constructor. The cells and the flood engine are copied, the
+	 * indexes, the change log and the dirty box are not.
+	 * 
+	 * @param board Board to copy.
+	 */
+	public Board(Board board) {
+		this.columns = board.columns;
+		this.rows = board.rows;
+		this.numOfColors = board.numOfColors;
+		this.engine = board.engine;
+
+		this.grid = board.grid.copy();
+	}
+
+	/**
+	 * Board without colors, for cells which are all set afterwards, as by a
+	 * decoder of the game state. No random colors are drawn for it.
+	 * 
+	 * @param columns     Board width.
+	 * @param rows        Board height.
+	 * @param numOfColors Number of colors on the board.
+	 * 
+	 * @return Board with all cells zero.
+	 */
+	public static Board blank(int columns, int rows, int numOfColors) {
+		return new Board(columns, rows, numOfColors, Grid.create(columns * rows, numOfColors));
+	}
+
+	/**
+	 * Constructor with given cells.
+	 * 
+	 * @param columns     Board width.
+	 * @param rows        Board height.
+	 * @param numOfColors Number of colors on the board.
+	 * @param grid        Cells, not copied.
+	 */
+	private Board(int columns, int rows, int numOfColors, Grid grid) {
+		this.columns = columns;
+		this.rows = rows;
+		this.numOfColors = numOfColors;
+
+		this.grid = grid;
+	}
+
+	/**
+	 * Constructor from packed cells.
+	 * 
+	 * @param columns     Board width.
+	 * @param rows        Board height.
+	 * @param numOfColors Number of colors on the board.
+	 * @param packed      Cells packed as by the pack method.
+	 */
+	public Board(int columns, int rows, int numOfColors, ByteBuffer packed) {
+		this.columns = columns;
+		this.rows = rows;
+		this.numOfColors = numOfColors;
+
+		grid = Grid.create(columns * rows, numOfColors);
+
+		unpack(packed);
+	}
+
+	/**
+	 * Replace all cells with packed cells.
+	 * 
+	 * @param packed Cells packed as by the pack method.
+	 */
+	public void unpack(ByteBuffer packed) {
+		regions = null;
+		bitplanes = null;
+
+		switch (bitsPerCell(numOfColors)) {
+		case 4:
+			for (int index = 0; index < grid.size(); index += 2) {
+				int pair = packed.get() & 0xFF;
+				store(index, pair >>> 4);
+				if (index + 1 < grid.size()) {
+					store(index + 1, pair & 0x0F);
+				}
+			}
+			break;
+		case 8:
+			for (int index = 0; index < grid.size(); index++) {
+				store(index, packed.get() & 0xFF);
+			}
+			break;
+		default:
+			for (int index = 0; index < grid.size(); index++) {
+				store(index, packed.getShort() & 0xFFFF);
+			}
+			break;
+		}
+	}
+
+	/**
+	 * Size of a packed cell.
+	 * 
+	 * @param numOfColors Number of colors on the board.
+	 * 
+	 * @return Bits per cell, 4 for up to 15 colors, 8 for up to 255 and 16
+	 *         for more.
+	 */
+	public static int bitsPerCell(int numOfColors) {
+		if (numOfColors <= 0x0F) {
+			return 4;
+		}
+
+		if (numOfColors <= 0xFF) {
+			return 8;
+		}
+
+		return 16;
+	}
+
+	/**
+	 * Pack the cells in row-major order. Two cells share a byte with the
+	 * first one in the high half when there are less than 16 colors.
+	 * 
+	 * @param buffer Buffer with enough remaining space.
+	 */
+	public void pack(ByteBuffer buffer) {
+		switch (bitsPerCell(numOfColors)) {
+		case 4:
+			for (int index = 0; index < grid.size(); index += 2) {
+				int low = index + 1 < grid.size() ? grid.get(index + 1) : 0;
+				buffer.put((byte) (grid.get(index) << 4 | low));
+			}
+			break;
+		case 8:
+			for (int index = 0; index < grid.size(); index++) {
+				buffer.put((byte) grid.get(index));
+			}
+			break;
+		default:
+			for (int index = 0; index < grid.size(); index++) {
+				buffer.putShort((short) grid.get(index));
+			}
+			break;
+		}
+	}
+
+	/**
+	 * Number of bytes of the packed cells.
+	 * 
+	 * @return Size.
+	 */
+	public int packedSize() {
+		return (grid.size() * bitsPerCell(numOfColors) + 7) / 8;
+	}
+
 	/**
 	 * Board width.
 	 * 
@@ -148,105 +538,224 @@ class Board {
 	 * @return Color.
 	 */
 	public int getColorIndex(int x, int y) {
-		return grid[x][y];
+		return grid.get(y * columns + x);
 	}
 
 	/**
-	 * Convert color index from HSV to RGB color value.
+	 * Set the color on a specific position without flooding.
 	 * 
-	 * https://en.wikipedia.org/wiki/HSL_and_HSV
+	 * @param x     X coordinate.
+	 * @param y     Y coordinate.
+	 * @param color New color.
+	 */
+	public void setColorIndex(int x, int y, int color) {
+		regions = null;
+		bitplanes = null;
+		store(y * columns + x, color);
+	}
+
+	/**
+	 * Set the color of a cell if it is different.
 	 * 
-	 * @param x X coordinate of the cell.
-	 * @param y Y coordinate of the cell.
+	 * @param index Cell index.
+	 * @param color New color.
+	 */
+	private void store(int index, int color) {
+		if (grid.get(index) == color) {
+			return;
+		}
+
+		grid.set(index, color);
+		if (log != null) {
+			log.add(index);
+		}
+		dirty.add(index % columns, index % columns, index / columns);
+	}
+
+	/**
+	 * Take the box of the cells changed since the last call.
 	 * 
-	 * @return Color object.
+	 * @return Box in cells or null if nothing is changed.
 	 */
-	private Color getColor(int x, int y) {
-		int Hi;
-		int R = 0, G = 0, B = 0;
-		double H, S, V;
-		double f, p, q, t;
+	public DirtyBox takeDirty() {
+		return dirty.take();
+	}
 
-		int val = grid[x][y];
-		int min_val = 1;
-		int max_val = numOfColors;
+	/**
+	 * Start or stop tracking of the changed cells.
+	 * 
+	 * @param tracking True to keep a log of the changes.
+	 */
+	public void setTracking(boolean tracking) {
+		log = tracking ? new ChangeLog() : null;
+	}
 
-		val -= min_val;
-		max_val -= min_val;
+	/**
+	 * Number of cells of each color, counted in parallel on large boards.
+	 * 
+	 * @return Counts by color index, the count of zero is always zero.
+	 */
+	public int[] getHistogram() {
+		int stripeRows = stripeRows();
 
-		H = 360 * val / max_val;
-		S = 0.8;
-		V = 0.8;
+		return IntStream.range(0, stripes()).parallel().mapToObj(s -> {
+			int counts[] = new int[numOfColors + 1];
 
-		Hi = (int) (H / 60) % 6;
+			int to = Math.min(rows, (s + 1) * stripeRows) * columns;
+			for (int index = s * stripeRows * columns; index < to; index++) {
+				counts[grid.get(index)]++;
+			}
 
-		f = H / 60 - Hi;
-		p = V * (1 - S);
-		q = V * (1 - f * S);
-		t = V * (1 - (1 - f) * S);
+			return counts;
+		}).reduce((a, b) -> {
+			for (int color = 0; color < a.length; color++) {
+				a[color] += b[color];
+			}
+			return a;
+		}).get();
+	}
 
-		switch (Hi) {
-		case 0:
-			R = (int) (V * 255);
-			G = (int) (t * 255);
-			B = (int) (p * 255);
-			break;
-		case 1:
-			R = (int) (q * 255);
-			G = (int) (V * 255);
-			B = (int) (p * 255);
-			break;
-		case 2:
-			R = (int) (p * 255);
-			G = (int) (V * 255);
-			B = (int) (t * 255);
-			break;
-		case 3:
-			R = (int) (p * 255);
-			G = (int) (q * 255);
-			B = (int) (V * 255);
-			break;
-		case 4:
-			R = (int) (t * 255);
-			G = (int) (p * 255);
-			B = (int) (V * 255);
-			break;
-		case 5:
-			R = (int) (V * 255);
-			G = (int) (p * 255);
-			B = (int) (q * 255);
-			break;
+	/**
+	 * Find the root of a cell in a union-find forest, halving the path.
+	 * 
+	 * @param parent Parent of each cell.
+	 * @param index  Cell index.
+	 * 
+	 * @return Root cell index.
+	 */
+	private static int root(int parent[], int index) {
+		while (parent[index] != index) {
+			parent[index] = parent[parent[index]];
+			index = parent[index];
 		}
 
-		while (R > 0xFF) {
-			R >>= 1;
+		return index;
+	}
+
+	/**
+	 * Join the trees of two cells in a union-find forest.
+	 * 
+	 * @param parent Parent of each cell.
+	 * @param a      Cell index.
+	 * @param b      Cell index.
+	 * 
+	 * @return True if they were in different trees.
+	 */
+	private static boolean union(int parent[], int a, int b) {
+		a = root(parent, a);
+		b = root(parent, b);
+
+		if (a == b) {
+			return false;
 		}
-		while (G > 0xFF) {
-			G >>= 1;
+
+		/* The smaller index is the root, so each stripe keeps its own roots. */
+		parent[Math.max(a, b)] = Math.min(a, b);
+		return true;
+	}
+
+	/**
+	 * Number of regions on the board. Each stripe of rows is labelled in
+	 * parallel and then the regions crossing the stripe borders are joined.
+	 * 
+	 * @return Regions.
+	 */
+	public int countRegions() {
+		int stripeRows = stripeRows();
+		int parent[] = new int[grid.size()];
+
+		int regions = IntStream.range(0, stripes()).parallel().map(s -> {
+			int from = s * stripeRows * columns;
+			int to = Math.min(rows, (s + 1) * stripeRows) * columns;
+			int count = 0;
+
+			for (int index = from; index < to; index++) {
+				parent[index] = index;
+				count++;
+
+				int color = grid.get(index);
+				if (index % columns > 0 && grid.get(index - 1) == color && union(parent, index - 1, index) == true) {
+					count--;
+				}
+				if (index - columns >= from && grid.get(index - columns) == color
+						&& union(parent, index - columns, index) == true) {
+					count--;
+				}
+			}
+
+			return count;
+		}).sum();
+
+		/* Regions which cross a stripe border are counted once for each stripe. */
+		for (int j = stripeRows; j < rows; j += stripeRows) {
+			for (int i = 0; i < columns; i++) {
+				int index = j * columns + i;
+
+				if (grid.get(index - columns) == grid.get(index) && union(parent, index - columns, index) == true) {
+					regions--;
+				}
+			}
 		}
-		while (B > 0xFF) {
-			B >>= 1;
+
+		return regions;
+	}
+
+	/**
+	 * Log of the changed cells.
+	 * 
+	 * @return Change log or null if the changes are not tracked.
+	 */
+	public ChangeLog getChanges() {
+		return log;
+	}
+
+	/**
+	 * Number of cells in the region of a specific position. The regions
+	 * engine indexes the regions on the first call, after that the size is
+	 * known without any flooding. The bit plane engine grows the region over
+	 * its planes, the other engines measure it with a scanline flooding, so
+	 * no index is built for them.
+	 * 
+	 * @param x X coordinate.
+	 * @param y Y coordinate.
+	 * 
+	 * @return Region size.
+	 */
+	public int getRegionSize(int x, int y) {
+		if (engine == FloodEngine.BITPLANE) {
+			if (bitplanes == null) {
+				bitplanes = new Bitplanes(grid, columns, numOfColors);
+			}
+			return bitplanes.size(y * columns + x);
 		}
 
-		return new Color(R, G, B);
+		if (engine != FloodEngine.REGIONS) {
+			return measure(x, y);
+		}
+
+		if (regions == null) {
+			regions = new Regions(grid, columns);
+		}
+
+		return regions.size(y * columns + x);
 	}
 
 	/**
-	 * Check for the synchronization lock.
+	 * Algorithm used for flooding.
 	 * 
-	 * @return True if the board is locked and false if the board is not locked.
+	 * @return Flood engine.
 	 */
-	public boolean isLocked() {
-		return locked.get();
+	public FloodEngine getFloodEngine() {
+		return engine;
 	}
 
 	/**
-	 * Lock and unlock the board.
+	 * Select the algorithm used for flooding.
 	 * 
-	 * @param locked State.
+	 * @param engine Flood engine.
 	 */
-	public void setLocked(boolean locked) {
-		this.locked.set(locked);
+	public void setFloodEngine(FloodEngine engine) {
+		this.engine = engine;
 	}
 
 	/**
@@ -257,66 +766,95 @@ class Board {
 	 * @param color New color.
 	 */
 	public void change(int x, int y, int color) {
-		flood(x, y, grid[x][y], color);
-	}
+		int oldColor = grid.get(y * columns + x);
 
-	/**
-	 * Draws the board on a specific graphic context.
-	 * 
-	 * @param g      Graphic context.
-	 * @param width  Width of the drawing area.
-	 * @param height Height of the drawing area.
-	 */
-	public void draw(Graphics g, int width, int height) {
-		if (getColumns() == 0) {
+		/* Flooding with the same color never ends. */
+		if (oldColor == color) {
 			return;
 		}
 
-		if (getRows() == 0) {
-			return;
+		switch (engine) {
+		case RECURSIVE:
+			/* Reference implementation, never replaced by the tiles. */
+			regions = null;
+			bitplanes = null;
+			flood(x, y, oldColor, color);
+			break;
+		case SCANLINE:
+			regions = null;
+			bitplanes = null;
+			/* Very large boards are flooded tile by tile in parallel. */
+			if (TileFlood.isWorth(grid.size()) == true) {
+				new TileFlood(grid, columns).change(y * columns + x, color, log, dirty);
+			} else {
+				scanline(x, y, oldColor, color, true);
+			}
+			break;
+		case REGIONS:
+			bitplanes = null;
+			if (regions == null) {
+				regions = new Regions(grid, columns);
+			}
+			regions.change(y * columns + x, color, log, dirty);
+			break;
+		case BITPLANE:
+			regions = null;
+			if (bitplanes == null) {
+				bitplanes = new Bitplanes(grid, columns, numOfColors);
+			}
+			bitplanes.change(y * columns + x, color, log, dirty);
+			break;
 		}
+	}
 
-		int cellSize = 0;
-		int a = (width - 1) / (getColumns() + 1);
-		int b = (height - 1) / (getRows() + 1);
-
-		if (a < b) {
-			cellSize = a;
-		} else {
-			cellSize = b;
-		}
+	/** Representing the board as a string. */
+	public String toString() {
+		StringBuilder text = new StringBuilder(textSize());
 
-		cellSize--;
+		for (int j = 0; j < rows; j++) {
+			for (int i = 0; i < columns; i++) {
+				text.append(grid.get(j * columns + i));
 
-		int xOffset = width / 2 - (getColumns() * (cellSize + 1)) / 2;
-		int yOffset = height / 2 - (getRows() * (cellSize + 1)) / 2;
+				if (i < columns - 1) {
+					text.append(' ');
+				}
+			}
 
-		for (int j = 0; j < getRows(); j++) {
-			for (int i = 0; i < getColumns(); i++) {
-				g.setColor(getColor(i, j));
-				g.fillRect(xOffset + i * (cellSize + 1), yOffset + j * (cellSize + 1), cellSize, cellSize);
+			if (j < rows - 1) {
+				text.append('\n');
 			}
 		}
+
+		return text.toString();
 	}
 
-	/** Representing the board as a string. */
-	public String toString() {
-		String text = "";
+	/**
+	 * Most characters of the board as a string.
+	 * 
+	 * @return Size.
+	 */
+	public int textSize() {
+		return columns * rows * (Ascii.size(numOfColors) + 1);
+	}
 
+	/**
+	 * Write the board as a string in ASCII bytes, the same as toString.
+	 * 
+	 * @param buffer Buffer with at least textSize remaining bytes.
+	 */
+	public void writeText(ByteBuffer buffer) {
 		for (int j = 0; j < rows; j++) {
 			for (int i = 0; i < columns; i++) {
-				text += grid[i][j];
+				Ascii.put(buffer, grid.get(j * columns + i));
 
 				if (i < columns - 1) {
-					text += " ";
+					buffer.put((byte) ' ');
 				}
 			}
 
 			if (j < rows - 1) {
-				text += "\n";
+				buffer.put((byte) '\n');
 			}
 		}
-
-		return text;
 	}
 }
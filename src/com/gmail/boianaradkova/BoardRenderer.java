@@ -0,0 +1,200 @@
+/**
+ * Coloring, Version 0.1
+ * New Bulgarian University
+ *
+ * Copyright (c) 2018 Boyana Kantarska
+ */
+
+package com.gmail.boianaradkova;
+
+import java.awt.Graphics;
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+
+/**
+ * Drawing of a board on a graphic context. The palette and the image of
+ * large boards are kept here, so the board itself and the games without a
+ * window do not need the AWT classes.
+ *
+ * @author Boyana Kantarska
+ */
+final class BoardRenderer {
+	/** Board which is drawn. */
+	private final Board board;
+
+	/** Colors of the cells. */
+	private final Palette palette;
+
+	/** Image with a pixel for each cell, reused between the drawings. */
+	private BufferedImage image = null;
+
+	/**
+	 * Constructor.
+	 *
+	 * @param board Board which is drawn.
+	 */
+	BoardRenderer(Board board) {
+		this.board = board;
+		this.palette = Palette.of(board.getNumOfColors());
+	}
+
+	/**
+	 * Board which is drawn.
+	 *
+	 * @return Board.
+	 */
+	public Board getBoard() {
+		return board;
+	}
+
+	/**
+	 * Size of a cell without its border in a drawing area.
+	 *
+	 * @param width  Width of the drawing area.
+	 * @param height Height of the drawing area.
+	 *
+	 * @return Cell size in pixels.
+	 */
+	private int cellSize(int width, int height) {
+		int cellSize = 0;
+		int a = (width - 1) / (board.getColumns() + 1);
+		int b = (height - 1) / (board.getRows() + 1);
+
+		if (a < b) {
+			cellSize = a;
+		} else {
+			cellSize = b;
+		}
+
+		cellSize--;
+
+		return cellSize;
+	}
+
+	/**
+	 * Area of the drawing which shows some cells, the same as used by draw.
+	 *
+	 * @param cells  Box in cells.
+	 * @param width  Width of the drawing area.
+	 * @param height Height of the drawing area.
+	 *
+	 * @return Box in pixels.
+	 */
+	public Rectangle getArea(DirtyBox cells, int width, int height) {
+		int columns = board.getColumns();
+		int rows = board.getRows();
+		int cellSize = cellSize(width, height);
+
+		/* Scaled image, rounded outwards. */
+		if (cellSize < 2) {
+			double scale = Math.min((double) width / columns, (double) height / rows);
+			int xOffset = (width - (int) (columns * scale)) / 2;
+			int yOffset = (height - (int) (rows * scale)) / 2;
+
+			int left = xOffset + (int) Math.floor(cells.getLeft() * scale);
+			int top = yOffset + (int) Math.floor(cells.getTop() * scale);
+			int right = xOffset + (int) Math.ceil((cells.getRight() + 1) * scale);
+			int bottom = yOffset + (int) Math.ceil((cells.getBottom() + 1) * scale);
+
+			return new Rectangle(left, top, right - left + 1, bottom - top + 1);
+		}
+
+		int xOffset = width / 2 - (columns * (cellSize + 1)) / 2;
+		int yOffset = height / 2 - (rows * (cellSize + 1)) / 2;
+
+		return new Rectangle(xOffset + cells.getLeft() * (cellSize + 1), yOffset + cells.getTop() * (cellSize + 1),
+				(cells.getRight() - cells.getLeft() + 1) * (cellSize + 1),
+				(cells.getBottom() - cells.getTop() + 1) * (cellSize + 1));
+	}
+
+	/**
+	 * Draws the board on a specific graphic context.
+	 *
+	 * @param g      Graphic context.
+	 * @param width  Width of the drawing area.
+	 * @param height Height of the drawing area.
+	 */
+	public void draw(Graphics g, int width, int height) {
+		if (board.getColumns() == 0) {
+			return;
+		}
+
+		if (board.getRows() == 0) {
+			return;
+		}
+
+		int cellSize = cellSize(width, height);
+
+		/* Cells too small for a border are drawn as a single scaled image. */
+		if (cellSize < 2) {
+			drawImage(g, width, height);
+			return;
+		}
+
+		int xOffset = width / 2 - (board.getColumns() * (cellSize + 1)) / 2;
+		int yOffset = height / 2 - (board.getRows() * (cellSize + 1)) / 2;
+
+		/* Only the cells inside the repainted area are drawn. */
+		int iFrom = 0, iTo = board.getColumns() - 1;
+		int jFrom = 0, jTo = board.getRows() - 1;
+		Rectangle clip = g.getClipBounds();
+		if (clip != null) {
+			iFrom = Math.max(iFrom, (clip.x - xOffset) / (cellSize + 1));
+			iTo = Math.min(iTo, (clip.x + clip.width - xOffset) / (cellSize + 1));
+			jFrom = Math.max(jFrom, (clip.y - yOffset) / (cellSize + 1));
+			jTo = Math.min(jTo, (clip.y + clip.height - yOffset) / (cellSize + 1));
+		}
+
+		for (int j = jFrom; j <= jTo; j++) {
+			for (int i = iFrom; i <= iTo; i++) {
+				g.setColor(palette.color(board.getColorIndex(i, j)));
+				g.fillRect(xOffset + i * (cellSize + 1), yOffset + j * (cellSize + 1), cellSize, cellSize);
+			}
+		}
+	}
+
+	/**
+	 * Draws the board as an image with a pixel for each cell, scaled to the
+	 * drawing area with a single drawImage call. The image is kept between
+	 * the drawings and only the cells inside the repainted area are taken
+	 * again, the changed cells are always inside it.
+	 *
+	 * @param g      Graphic context.
+	 * @param width  Width of the drawing area.
+	 * @param height Height of the drawing area.
+	 */
+	public void drawImage(Graphics g, int width, int height) {
+		int columns = board.getColumns();
+		int rows = board.getRows();
+
+		double scale = Math.min((double) width / columns, (double) height / rows);
+		int w = (int) (columns * scale);
+		int h = (int) (rows * scale);
+		int xOffset = (width - w) / 2;
+		int yOffset = (height - h) / 2;
+
+		int iFrom = 0, iTo = columns - 1;
+		int jFrom = 0, jTo = rows - 1;
+		Rectangle clip = g.getClipBounds();
+		if (image == null) {
+			image = new BufferedImage(columns, rows, BufferedImage.TYPE_INT_RGB);
+		} else if (clip != null && scale > 0) {
+			/* Cells under the repainted area, rounded outwards as by getArea. */
+			iFrom = Math.max(iFrom, (int) Math.floor((clip.x - xOffset) / scale) - 1);
+			iTo = Math.min(iTo, (int) Math.ceil((clip.x + clip.width - xOffset) / scale));
+			jFrom = Math.max(jFrom, (int) Math.floor((clip.y - yOffset) / scale) - 1);
+			jTo = Math.min(jTo, (int) Math.ceil((clip.y + clip.height - yOffset) / scale));
+		}
+
+		int pixels[] = ((DataBufferInt) image.getRaster().getDataBuffer()).getData();
+		int rgb[] = palette.rgb();
+		for (int j = jFrom; j <= jTo; j++) {
+			for (int i = iFrom; i <= iTo; i++) {
+				pixels[j * columns + i] = rgb[board.getColorIndex(i, j)];
+			}
+		}
+
+		g.drawImage(image, xOffset, yOffset, w, h, null);
+	}
+}
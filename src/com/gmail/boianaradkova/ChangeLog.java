@@ -0,0 +1,102 @@
+/**
+ * Coloring, Version 0.1
+ * New Bulgarian University
+ *
+ * Copyright (c) 2018 Boyana Kantarska
+ */
+
+package com.gmail.boianaradkova;
+
+import java.util.Arrays;
+
+/**
+ * Log of the changed cells of a board. Positions in the log are marks which
+ * keep counting after the old entries are dropped, so a reader can ask for
+ * everything changed since its last mark.
+ *
+ * @author Boyana Kantarska
+ */
+final class ChangeLog {
+	/** Most entries kept, the older readers get the whole board after it. */
+	private static final int MAX_ENTRIES = 1 << 28;
+
+	/** Changed cell indexes. */
+	private int cells[] = new int[64];
+
+	/** Number of entries in the log. */
+	private int size = 0;
+
+	/** Mark of the first entry in the log. */
+	private long base = 0;
+
+	/**
+	 * Record a changed cell.
+	 *
+	 * @param index Cell index.
+	 */
+	public void add(int index) {
+		if (size == MAX_ENTRIES) {
+			base += size;
+			size = 0;
+		}
+		if (size == cells.length) {
+			cells = Arrays.copyOf(cells, Math.min(2 * size, MAX_ENTRIES));
+		}
+
+		cells[size++] = index;
+	}
+
+	/**
+	 * Mark after the last entry.
+	 *
+	 * @return Mark.
+	 */
+	public long mark() {
+		return base + size;
+	}
+
+	/**
+	 * Sorted distinct cells changed since a mark.
+	 *
+	 * @param mark Mark of the reader.
+	 *
+	 * @return Cell indexes or null if the mark is older than the dropped
+	 *         entries or after the last one, so the changes are not known.
+	 */
+	public int[] since(long mark) {
+		if (mark < base || mark - base > size) {
+			return null;
+		}
+
+		int from = (int) (mark - base);
+		int changed[] = Arrays.copyOfRange(cells, from, size);
+
+		Arrays.sort(changed);
+
+		int count = 0;
+		for (int i = 0; i < changed.length; i++) {
+			if (count == 0 || changed[count - 1] != changed[i]) {
+				changed[count++] = changed[i];
+			}
+		}
+
+		return Arrays.copyOf(changed, count);
+	}
+
+	/**
+	 * Drop the entries before a mark.
+	 *
+	 * @param mark Oldest mark which is still needed.
+	 */
+	public void trim(long mark) {
+		if (mark <= base) {
+			return;
+		}
+
+		int drop = (int) Math.min(mark - base, size);
+
+		System.arraycopy(cells, drop, cells, 0, size - drop);
+		size -= drop;
+		base += drop;
+	}
+}
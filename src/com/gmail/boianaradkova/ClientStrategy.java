@@ -0,0 +1,25 @@
+/**
+ * Coloring, Version 0.1
+ * New Bulgarian University
+ *
+ * Copyright (c) 2018 Boyana Kantarska
+ */
+
+package com.gmail.boianaradkova;
+
+/**
+ * Playing strategy of a client, working on the game state received from the
+ * server.
+ *
+ * @author Boyana Kantarska
+ */
+interface ClientStrategy {
+	/**
+	 * Choose the next color.
+	 *
+	 * @param state Decoder with the last received game state.
+	 *
+	 * @return Chosen color.
+	 */
+	int choose(ProtocolDecoder state);
+}
@@ -0,0 +1,97 @@
+/**
+ * Coloring, Version 0.1
+ * New Bulgarian University
+ *
+ * Copyright (c) 2018 Boyana Kantarska
+ */
+
+package com.gmail.boianaradkova;
+
+/**
+ * Bounding box of the changed cells of a board since the last repaint.
+ *
+ * @author Boyana Kantarska
+ */
+final class DirtyBox {
+	/** Leftmost changed column. */
+	private int left = Integer.MAX_VALUE;
+
+	/** Topmost changed row. */
+	private int top = Integer.MAX_VALUE;
+
+	/** Rightmost changed column. */
+	private int right = Integer.MIN_VALUE;
+
+	/** Bottommost changed row. */
+	private int bottom = Integer.MIN_VALUE;
+
+	/**
+	 * Add a span of changed cells in a row.
+	 *
+	 * @param from First column.
+	 * @param to   Last column.
+	 * @param y    Row.
+	 */
+	public void add(int from, int to, int y) {
+		left = Math.min(left, from);
+		right = Math.max(right, to);
+		top = Math.min(top, y);
+		bottom = Math.max(bottom, y);
+	}
+
+	/**
+	 * Take the changed cells and start a new box.
+	 *
+	 * @return Box of the taken cells or null if nothing is changed.
+	 */
+	public DirtyBox take() {
+		if (right < left) {
+			return null;
+		}
+
+		DirtyBox box = new DirtyBox();
+		box.add(left, right, top);
+		box.add(left, right, bottom);
+
+		left = top = Integer.MAX_VALUE;
+		right = bottom = Integer.MIN_VALUE;
+
+		return box;
+	}
+
+	/**
+	 * Leftmost changed column.
+	 *
+	 * @return Column.
+	 */
+	public int getLeft() {
+		return left;
+	}
+
+	/**
+	 * Topmost changed row.
+	 *
+	 * @return Row.
+	 */
+	public int getTop() {
+		return top;
+	}
+
+	/**
+	 * Rightmost changed column.
+	 *
+	 * @return Column.
+	 */
+	public int getRight() {
+		return right;
+	}
+
+	/**
+	 * Bottommost changed row.
+	 *
+	 * @return Row.
+	 */
+	public int getBottom() {
+		return bottom;
+	}
+}
@@ -19,8 +19,8 @@ import javax.swing.JPanel;
 @SuppressWarnings("serial")
 class DrawingPanel extends JPanel {
 
-	/** Handle to the board which should be drawn. */
-	private Board board;
+	/** Drawing of the board, null without a board. */
+	private BoardRenderer renderer;
 
 	/**
 	 * Constructor.
@@ -28,7 +28,7 @@ class DrawingPanel extends JPanel {
 	 * @param board Handle to the board.
 	 */
 	DrawingPanel(Board board) {
-		this.board = board;
+		setBoard(board);
 	}
 
 	/**
@@ -38,7 +38,23 @@ class DrawingPanel extends JPanel {
 	 */
 	public void paintComponent(Graphics g) {
 		super.paintComponent(g);
-		board.draw(g, getWidth(), getHeight());
+		if (renderer != null) {
+			renderer.draw(g, getWidth(), getHeight());
+		}
+	}
+
+	/** Repaint only the area of the cells changed since the last call. */
+	public void repaintChanges() {
+		if (renderer == null) {
+			return;
+		}
+
+		DirtyBox cells = renderer.getBoard().takeDirty();
+		if (cells == null) {
+			return;
+		}
+
+		repaint(renderer.getArea(cells, getWidth(), getHeight()));
 	}
 
 	/**
@@ -47,6 +63,6 @@ class DrawingPanel extends JPanel {
 	 * @param board Board handle.
 	 */
 	public void setBoard(Board board) {
-		this.board = board;
+		renderer = board == null ? null : new BoardRenderer(board);
 	}
 }
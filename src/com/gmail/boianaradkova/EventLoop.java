@@ -0,0 +1,315 @@
+/**
+ * Coloring, Version 0.1
+ * New Bulgarian University
+ *
+ * Copyright (c) 2018 Boyana Kantarska
+ */
+
+package com.gmail.boianaradkova;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.HashMap;
+import java.util.Iterator;
+
+/**
+ * Non-blocking game driver. A single thread accepts the clients, sends the
+ * game state and waits for the replies with a selector, and the turns are
+ * played in the order of the players list.
+ *
+ * @author Boyana Kantarska
+ */
+class EventLoop {
+	/** Connection of a player to the event loop. */
+	private static class Session {
+		/** Client channel. */
+		private final SocketChannel channel;
+
+		/** Player state. */
+		private final Player player;
+
+		/** Pending game state. */
+		private ByteBuffer out = ByteBuffer.allocate(0);
+
+		/** Received bytes. */
+		private final ByteBuffer in = ByteBuffer.allocate(256);
+
+		/** Characters of the line being received. */
+		private final StringBuilder line = new StringBuilder();
+
+		/** The player is on turn and the next line is its move. */
+		private boolean waiting = false;
+
+		/** Received move, valid when the player is not waiting any more. */
+		private String reply = null;
+
+		/** Value of System.nanoTime() when the pending game state was ready. */
+		private long sending = 0;
+
+		Session(SocketChannel channel, Player player) {
+			this.channel = channel;
+			this.player = player;
+		}
+	}
+
+	/** Game which is played. */
+	private final Game game;
+
+	/** Each client should response in a given seconds. */
+	private final int responseTimeout;
+
+	/** Selector of all channels. */
+	private final Selector selector;
+
+	/** Connection of each player. */
+	private final HashMap<Player, Session> sessions = new HashMap<>();
+
+	/**
+	 * Constructor.
+	 *
+	 * @param game            Game which is played.
+	 * @param responseTimeout Seconds for each response, zero waits without limit.
+	 *
+	 * @throws IOException If the selector is not available.
+	 */
+	EventLoop(Game game, int responseTimeout) throws IOException {
+		this.game = game;
+		this.responseTimeout = responseTimeout;
+		this.selector = Selector.open();
+	}
+
+	/**
+	 * Wait players to connect.
+	 *
+	 * @param port              Port number for the game server.
+	 * @param connectionTimeout Seconds for the clients to connect.
+	 *
+	 * @throws IOException If the port is not available.
+	 */
+	public void host(int port, int connectionTimeout) throws IOException {
+		ServerSocketChannel server = ServerSocketChannel.open();
+		server.bind(new InetSocketAddress(port));
+		server.configureBlocking(false);
+		SelectionKey accepting = server.register(selector, SelectionKey.OP_ACCEPT);
+
+		System.out.println("Server started on port " + port + " ...");
+		System.out.println("Server will wait for clients to connect " + connectionTimeout + " seconds ...");
+
+		long deadline = System.currentTimeMillis() + connectionTimeout * 1000L;
+		for (long left = connectionTimeout * 1000L; left > 0; left = deadline - System.currentTimeMillis()) {
+			selector.select(left);
+			handle();
+		}
+
+		accepting.cancel();
+		server.close();
+
+		System.out.println("Connection timeout, " + game.getPlayers().size() + " clients connected ...");
+	}
+
+	/**
+	 * Play the turns until there is no active player. A resumed game goes on
+	 * with its next player.
+	 */
+	public void play() {
+		int first = Math.max(0, game.getPlayingIndex());
+		boolean playing = true;
+
+		while (playing == true) {
+			playing = false;
+
+			for (int k = 0; k < game.getPlayers().size(); k++) {
+				Player player = game.getPlayers().elementAt((first + k) % game.getPlayers().size());
+
+				if (player.isActive() == true) {
+					playing = true;
+					int color = turn(player);
+
+					/* A player who left during the turn has made no invalid move. */
+					if (player.isActive() == true) {
+						game.endTurn(player, color);
+					}
+				}
+
+				game.showTurn();
+			}
+		}
+
+		game.finish();
+	}
+
+	/**
+	 * Send the game state to a player and wait for the move.
+	 *
+	 * @param player Player who is on turn.
+	 *
+	 * @return Chosen color or zero if there is no correct response in time.
+	 */
+	private int turn(Player player) {
+		Session session = sessions.get(player);
+
+		if (session == null || session.channel.isOpen() == false) {
+			return 0;
+		}
+
+		long start = System.nanoTime();
+		long deadline = responseTimeout > 0 ? start + 1000000000L * responseTimeout : 0;
+
+		session.out = game.beginTurn(player);
+		session.sending = System.nanoTime();
+		session.reply = null;
+		session.waiting = true;
+		session.channel.keyFor(selector).interestOps(SelectionKey.OP_READ | SelectionKey.OP_WRITE);
+
+		try {
+			while (session.waiting == true) {
+				if (deadline == 0) {
+					selector.select();
+				} else {
+					long left = (deadline - System.nanoTime()) / 1000000;
+					if (left <= 0) {
+						break;
+					}
+					selector.select(left);
+				}
+
+				handle();
+			}
+		} catch (IOException ex) {
+			System.err.println("Event loop failed: " + ex);
+		}
+
+		player.recordLatency(System.nanoTime() - start);
+
+		if (session.waiting == true) {
+			session.waiting = false;
+			System.err.println("Response timeout of " + responseTimeout + " seconds expired.");
+			return 0;
+		}
+
+		return player.parseReply(session.reply);
+	}
+
+	/** Handle the selected keys. */
+	private void handle() {
+		Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+
+		while (keys.hasNext()) {
+			SelectionKey key = keys.next();
+			keys.remove();
+
+			if (key.isValid() == false) {
+				continue;
+			}
+
+			try {
+				if (key.isAcceptable() == true) {
+					accept((ServerSocketChannel) key.channel());
+					continue;
+				}
+
+				Session session = (Session) key.attachment();
+
+				if (key.isWritable() == true) {
+					session.player.countSent(session.channel.write(session.out));
+					if (session.out.hasRemaining() == false) {
+						key.interestOps(SelectionKey.OP_READ);
+						Metrics.get().send.record(System.nanoTime() - session.sending);
+					}
+				}
+
+				if (key.isReadable() == true) {
+					receive(session);
+				}
+			} catch (IOException ex) {
+				close(key);
+			}
+		}
+	}
+
+	/**
+	 * Accept a new client.
+	 *
+	 * @param server Server channel.
+	 *
+	 * @throws IOException If the client can not be registered.
+	 */
+	private void accept(ServerSocketChannel server) throws IOException {
+		SocketChannel client = server.accept();
+		if (client == null) {
+			return;
+		}
+
+		client.configureBlocking(false);
+		Player player = new Player("" + System.currentTimeMillis(), null);
+		Session session = new Session(client, player);
+		client.register(selector, SelectionKey.OP_READ, session);
+		sessions.put(player, session);
+		Metrics.get().connected(player);
+		game.addPlayer(player);
+	}
+
+	/**
+	 * Read the available bytes of a client. Lines received out of turn are
+	 * ignored.
+	 *
+	 * @param session Client session.
+	 *
+	 * @throws IOException If the connection is broken or closed.
+	 */
+	private void receive(Session session) throws IOException {
+		session.in.clear();
+		int bytes = session.channel.read(session.in);
+		if (bytes == -1) {
+			throw new IOException("Connection closed");
+		}
+		session.player.countReceived(bytes);
+		session.in.flip();
+
+		while (session.in.hasRemaining() == true) {
+			char c = (char) session.in.get();
+
+			if (c == '\r') {
+				continue;
+			}
+
+			if (c != '\n') {
+				session.line.append(c);
+				continue;
+			}
+
+			if (session.waiting == true) {
+				session.reply = session.line.toString();
+				session.waiting = false;
+			}
+			session.line.setLength(0);
+		}
+	}
+
+	/**
+	 * Drop a broken connection, its player leaves the game.
+	 *
+	 * @param key Selection key of the connection.
+	 */
+	private void close(SelectionKey key) {
+		Session session = (Session) key.attachment();
+		key.cancel();
+
+		try {
+			session.channel.close();
+		} catch (IOException ex) {
+		}
+
+		if (session.waiting == true) {
+			session.reply = "";
+			session.waiting = false;
+		}
+		session.player.setNotActive();
+		Metrics.get().disconnected(session.player);
+	}
+}
@@ -0,0 +1,47 @@
+/**
+ * Coloring, Version 0.1
+ * New Bulgarian University
+ *
+ * Copyright (c) 2018 Boyana Kantarska
+ */
+
+package com.gmail.boianaradkova;
+
+/**
+ * Algorithms available for flooding a region of the board.
+ *
+ * @author Boyana Kantarska
+ */
+enum FloodEngine {
+	/** One recursive call per cell, limited by the thread stack size. */
+	RECURSIVE,
+
+	/**
+	 * Iterative scanline filling over a reusable work stack, by tiles in
+	 * parallel on boards with at least coloring.flood.parallel cells.
+	 */
+	SCANLINE,
+
+	/**
+	 * Incremental merging of the regions kept in a union-find index. The
+	 * index takes several ints for each cell, about fifty times the memory
+	 * of a byte grid, so it is used only when it is chosen.
+	 */
+	REGIONS,
+
+	/** Region growth over bit planes of the colors, for boards with few colors. */
+	BITPLANE;
+
+	/**
+	 * Engine selected with the coloring.flood system property.
+	 *
+	 * @return Engine by name or scanline if the property is missing or wrong.
+	 */
+	static FloodEngine byDefault() {
+		try {
+			return valueOf(System.getProperty("coloring.flood", SCANLINE.name()).toUpperCase());
+		} catch (IllegalArgumentException ex) {
+			return SCANLINE;
+		}
+	}
+}
@@ -0,0 +1,690 @@
+/**
+ * Coloring, Version 0.1
+ * New Bulgarian University
+ *
+ * Copyright (c) 2018 Boyana Kantarska
+ */
+
+package com.gmail.boianaradkova;
+
+import java.nio.ByteBuffer;
+import java.util.Collections;
+import java.util.Vector;
+import java.util.random.RandomGenerator;
+
+/**
+ * The game engine without any user interface.
+ * 
+ * @author Boyana Kantarska
+ */
+public class Game {
+	/** Each client should response in a given seconds. */
+	private int responseTimeout = -1;
+	
+	/** Index of the player on turn. */
+	private int playingIndex = -1;
+
+	/** Game board with lock. */
+	private Board board = null;
+
+	/** Holding handle to each player as thread. */
+	private Vector<Player> players = new Vector<>();
+
+	/** Number of players using each color, kept with the player colors. */
+	private int colorUsers[] = new int[0];
+
+	/** Action after each turn, null for nothing. */
+	private Runnable onTurn = null;
+
+	/** Initialization messages are printed. */
+	private boolean verbose = true;
+
+	/** Game without clients, its changes and metrics are not kept. */
+	private boolean headless = false;
+
+	/** Record of the moves, null for no record. */
+	private Journal journal = null;
+
+	/** Checkpoints of the game, null for no checkpoints. */
+	private Snapshot snapshot = null;
+
+	/** Value of System.nanoTime() when the current turn began, 0 for none. */
+	private long turnStart = 0;
+
+	/** Order of the players should be random. */
+	private void shufflePlayers() {
+		RandomGenerator random = RandomSource.get();
+
+		for (int p = players.size() - 1; p > 0; p--) {
+			Collections.swap(players, p, random.nextInt(p + 1));
+		}
+	}
+
+	/** Matching the playing player index with the handle. */
+	private Player playingNow() {
+		return players.elementAt(playingIndex);
+	}
+
+	/**
+	 * Check for blocked colors.
+	 * 
+	 * @param player Player on turn.
+	 * @param color  New selected color, on the board.
+	 * 
+	 * @return True if the color is in use by other players and false if it is
+	 *         not.
+	 */
+	private boolean isColorUsed(Player player, int color) {
+		/* The own color of the player does not block it. */
+		int others = colorUsers[color] - (player.getColor() == color ? 1 : 0);
+
+		return others > 0;
+	}
+
+	/**
+	 * Change the color of a player and the counts of the color users.
+	 * 
+	 * @param player Player.
+	 * @param color  New color.
+	 */
+	private void recolor(Player player, int color) {
+		colorUsers[player.getColor()]--;
+		player.setColor(color);
+		colorUsers[color]++;
+	}
+
+	/**
+	 * Check whether a player may choose a color.
+	 * 
+	 * @param player Player on turn.
+	 * @param color  Color to check.
+	 * 
+	 * @return True if the color is on the board and not used by other players.
+	 */
+	public boolean isColorFree(Player player, int color) {
+		if (color < 1 || color > board.getNumOfColors()) {
+			return false;
+		}
+
+		return isColorUsed(player, color) == false;
+	}
+
+	/**
+	 * Check the position in first positioning of the player.
+	 * 
+	 * @param playerIndex Index of the player to be positioned.
+	 * @param x           X coordinate on the board.
+	 * @param y           Y coordinate on the board.
+	 * @param color       Color which should be used.
+	 * 
+	 * @return True if the position is available and false if the position is not
+	 *         available.
+	 */
+	private boolean isGoodPosition(int playerIndex, int x, int y) {
+		boolean isGood = true;
+		int color = board.getColorIndex(x, y);
+
+		for (int p = 0; p < playerIndex; p++) {
+			if (((Player) players.elementAt(p)).getColor() != color) {
+				continue;
+			}
+			if (((Player) players.elementAt(p)).getX() != x) {
+				continue;
+			}
+			if (((Player) players.elementAt(p)).getY() != y) {
+				continue;
+			}
+
+			isGood = false;
+			break;
+		}
+
+		return isGood;
+	}
+
+	/**
+	 * Initialize board and players. Should be executed after the players are
+	 * connected.
+	 */
+	public void init() {
+		RandomGenerator random = RandomSource.get();
+
+		/* Choosing rаndom number of colors. */
+		int numOfColors = (players.size() + 1) + (int) (random.nextDouble() * 4 * players.size() - 1);
+
+		/* Choosing random dimensions of the board. */
+		int width = (players.size() + 1) + (int) (random.nextDouble() * 9 * players.size() - 1);
+		int heigth = (players.size() + 1) + (int) (random.nextDouble() * 9 * players.size() - 1);
+
+		/* Board creation. */
+		init(new Board(width, heigth, numOfColors, random));
+	}
+
+	/**
+	 * Initialize players on a given board. Should be executed after the
+	 * players are connected.
+	 * 
+	 * @param board Game board.
+	 */
+	public void init(Board board) {
+		int x, y;
+		RandomGenerator random = RandomSource.get();
+
+		this.board = board;
+		board.setTracking(headless == false);
+		colorUsers = new int[board.getNumOfColors() + 1];
+
+		/* Initializing players and positioning on the board. */
+		for (int p = 0; p < players.size(); p++) {
+			do {
+				x = random.nextInt(board.getColumns());
+				y = random.nextInt(board.getRows());
+			} while (isGoodPosition(p, x, y) == false);
+
+			((Player) players.elementAt(p)).init(x, y, board.getColorIndex(x, y));
+			colorUsers[board.getColorIndex(x, y)]++;
+			((Player) players.elementAt(p)).setScore(board.getRegionSize(x, y));
+
+			if (verbose == true) {
+				System.out.println("Player " + players.elementAt(p).getPlayerName() + " initialized ...");
+			}
+		}
+
+		/* Players should play turns in random order. */
+		shufflePlayers();
+
+		if (journal != null) {
+			journal.begin(board, players);
+		}
+
+		if (verbose == true) {
+			System.out.println("Game server initialization ...");
+		}
+	}
+
+	/**
+	 * Continue a game on a restored board. The players should be set with
+	 * their positions, colors and scores.
+	 * 
+	 * @param board Game board.
+	 * @param next  Index of the next player on turn.
+	 */
+	public void resume(Board board, int next) {
+		this.board = board;
+		board.setTracking(true);
+		colorUsers = new int[board.getNumOfColors() + 1];
+
+		for (int p = 0; p < players.size(); p++) {
+			colorUsers[players.elementAt(p).getColor()]++;
+		}
+		playingIndex = next;
+
+		if (journal != null) {
+			journal.begin(board, players);
+		}
+	}
+
+	/**
+	 * Play the turns one after another in the current thread until there is
+	 * no active player.
+	 */
+	public void play() {
+		boolean playing = true;
+
+		while (playing == true) {
+			playing = false;
+
+			for (int p = 0; p < players.size(); p++) {
+				Player player = players.elementAt(p);
+
+				if (player.isActive() == true) {
+					playing = true;
+					player.write(beginTurn(player));
+					endTurn(player, player.read(responseTimeout));
+				}
+
+				showTurn();
+			}
+		}
+
+		finish();
+	}
+
+	/** Close the record and the checkpoints of the game after the last turn. */
+	public void finish() {
+		if (journal != null) {
+			journal.close();
+		}
+		if (snapshot != null) {
+			snapshot.close();
+		}
+	}
+
+	/**
+	 * Set the time for each response.
+	 * 
+	 * @param responseTimeout Seconds, zero waits without limit.
+	 */
+	public void setResponseTimeout(int responseTimeout) {
+		this.responseTimeout = responseTimeout;
+	}
+
+	/**
+	 * Time for each response.
+	 * 
+	 * @return Seconds, zero waits without limit.
+	 */
+	public int getResponseTimeout() {
+		return responseTimeout;
+	}
+
+	/**
+	 * Start the turn of a player.
+	 * 
+	 * @param player Player who is on turn.
+	 * 
+	 * @return Game state which should be sent to the player, in the message
+	 *         buffer of the player.
+	 */
+	public ByteBuffer beginTurn(Player player) {
+		long start = System.nanoTime();
+		turnStart = start;
+		playingIndex = players.indexOf(player);
+
+		ChangeLog log = board.getChanges();
+		ByteBuffer message;
+
+		/* After the first full state the client gets the protocol it asked. */
+		if (player.getProtocol() == 3) {
+			message = player.getMessage(4 * (7 + players.size()) + board.packedSize());
+			toBinary(message);
+		} else if (player.getProtocol() == 2) {
+			/* Without a log or the changes since its mark the client gets all cells. */
+			int changed[] = log == null ? null : log.since(player.getSeen());
+			int spans = countSpans(changed);
+
+			message = player.getMessage(deltaSize(spans));
+			toDelta(message, changed, spans);
+		} else {
+			message = player.getMessage(textSize());
+			toText(message);
+		}
+		message.flip();
+
+		if (log != null) {
+			player.setSeen(log.mark());
+
+			/* Changes seen by every delta player are not needed any more. */
+			long oldest = log.mark();
+			for (int p = 0; p < players.size(); p++) {
+				Player other = players.elementAt(p);
+				if (other.isActive() == true && other.getProtocol() == 2) {
+					oldest = Math.min(oldest, other.getSeen());
+				}
+			}
+			log.trim(oldest);
+		}
+
+		Metrics.get().serialize.record(System.nanoTime() - start);
+
+		return message;
+	}
+
+	/**
+	 * Finish the turn of a player with the received move.
+	 * 
+	 * @param player Player who is on turn.
+	 * @param color  Chosen color.
+	 * 
+	 * @return True if the move is accepted and false if the player is not
+	 *         active any more.
+	 */
+	public boolean endTurn(Player player, int color) {
+		playingIndex = players.indexOf(player);
+		if (headless == false) {
+			Metrics.get().turn();
+		}
+
+		/* Player answer should be valid. */
+		if (color < 1 || color > board.getNumOfColors() || isColorUsed(player, color) == true) {
+			if (headless == false) {
+				Metrics.get().invalidMove();
+			}
+			recordTurn();
+			player.setNotActive();
+			if (journal != null) {
+				journal.move(playingIndex, color, false);
+			}
+			if (snapshot != null) {
+				snapshot.turn(this);
+			}
+			return false;
+		}
+
+		long start = System.nanoTime();
+		board.change(player.getX(), player.getY(), color);
+		if (journal != null) {
+			journal.move(playingIndex, color, true);
+		}
+		recolor(player, color);
+
+		/* The region is measured only when the score is read. */
+		player.setScore(-1);
+		if (headless == false) {
+			Metrics.get().flood.record(System.nanoTime() - start);
+		}
+		recordTurn();
+
+		if (snapshot != null) {
+			snapshot.turn(this);
+		}
+
+		return true;
+	}
+
+	/** Record the time of a turn which began with a game state. */
+	private void recordTurn() {
+		if (turnStart != 0) {
+			Metrics.get().turnTime.record(System.nanoTime() - turnStart);
+			turnStart = 0;
+		}
+	}
+
+	/** Show the game state after a turn. */
+	public void showTurn() {
+		if (onTurn != null) {
+			long start = System.nanoTime();
+			onTurn.run();
+			Metrics.get().repaint.record(System.nanoTime() - start);
+		}
+	}
+
+	/**
+	 * Set what should be done after each turn.
+	 * 
+	 * @param onTurn Action or null for nothing.
+	 */
+	public void setOnTurn(Runnable onTurn) {
+		this.onTurn = onTurn;
+	}
+
+	/**
+	 * Print the initialization messages.
+	 * 
+	 * @param verbose True to print and false to keep quiet.
+	 */
+	public void setVerbose(boolean verbose) {
+		this.verbose = verbose;
+	}
+
+	/**
+	 * Play without clients, set before the initialization. The changed
+	 * cells are not tracked for the delta protocol and the turns are not
+	 * counted in the metrics of the process.
+	 * 
+	 * @param headless True for a game without clients.
+	 */
+	public void setHeadless(boolean headless) {
+		this.headless = headless;
+	}
+
+	/**
+	 * Keep a record of the game, set before the initialization.
+	 * 
+	 * @param journal Journal or null for no record.
+	 */
+	void setJournal(Journal journal) {
+		this.journal = journal;
+	}
+
+	/**
+	 * Keep checkpoints of the game.
+	 * 
+	 * @param snapshot Snapshot or null for no checkpoints.
+	 */
+	void setSnapshot(Snapshot snapshot) {
+		this.snapshot = snapshot;
+	}
+
+	/**
+	 * Index of the player on turn or of the last one.
+	 * 
+	 * @return Index in the order of the turns, -1 before the first turn.
+	 */
+	public int getPlayingIndex() {
+		return playingIndex;
+	}
+
+	/**
+	 * Add player to the list of the players.
+	 */
+	public void addPlayer(Player player) {
+		players.add(player);
+	}
+
+	/**
+	 * Score of a player, the size of its region. After a move it is
+	 * measured on the first reading, so the turns do not pay for it.
+	 * 
+	 * @param player Player of the game.
+	 * 
+	 * @return Number of cells owned.
+	 */
+	public int getScore(Player player) {
+		if (player.getScore() < 0) {
+			player.setScore(board.getRegionSize(player.getX(), player.getY()));
+		}
+
+		return player.getScore();
+	}
+
+	/**
+	 * Players in the order of their turns.
+	 * 
+	 * @return Players.
+	 */
+	public Vector<Player> getPlayers() {
+		return players;
+	}
+
+	/**
+	 * Game board.
+	 * 
+	 * @return Board or null before the initialization.
+	 */
+	public Board getBoard() {
+		return board;
+	}
+
+	/**
+	 * Presenting game state as string.
+	 */
+	public String toString() {
+		/* Text of the message sent by the server. */
+		StringBuilder text = new StringBuilder(textSize());
+
+		text.append(board.getColumns()).append(' ').append(board.getRows()).append(' ').append(board.getNumOfColors())
+				.append(' ').append(players.size()).append('\n');
+
+		text.append(1 + playingNow().getX()).append(' ').append(1 + playingNow().getY()).append('\n');
+
+		for (int p = 0; p < players.size(); p++) {
+			text.append(((Player) players.elementAt(p)).getColor());
+
+			if (p != players.size() - 1) {
+				text.append(' ');
+			}
+		}
+		text.append('\n');
+		text.append(board).append('\n');
+
+		return text.toString();
+	}
+
+	/**
+	 * Most characters of the game state as a string.
+	 * 
+	 * @return Size.
+	 */
+	public int textSize() {
+		return 12 * (6 + players.size()) + board.textSize() + 4;
+	}
+
+	/**
+	 * Write the game state as a string in ASCII bytes, the same as toString,
+	 * without building the string.
+	 * 
+	 * @param buffer Buffer with at least textSize remaining bytes.
+	 */
+	public void toText(ByteBuffer buffer) {
+		putHeader(buffer);
+
+		board.writeText(buffer);
+		buffer.put((byte) '\n');
+	}
+
+	/**
+	 * Write the header lines of the text game states: the board size, the
+	 * numbers of colors and players, the position of the player on turn and
+	 * the colors of all players.
+	 * 
+	 * @param buffer Buffer with enough remaining space.
+	 */
+	private void putHeader(ByteBuffer buffer) {
+		Ascii.put(buffer, board.getColumns());
+		buffer.put((byte) ' ');
+		Ascii.put(buffer, board.getRows());
+		buffer.put((byte) ' ');
+		Ascii.put(buffer, board.getNumOfColors());
+		buffer.put((byte) ' ');
+		Ascii.put(buffer, players.size());
+		buffer.put((byte) '\n');
+
+		Ascii.put(buffer, 1 + playingNow().getX());
+		buffer.put((byte) ' ');
+		Ascii.put(buffer, 1 + playingNow().getY());
+		buffer.put((byte) '\n');
+
+		for (int p = 0; p < players.size(); p++) {
+			Ascii.put(buffer, players.elementAt(p).getColor());
+
+			if (p != players.size() - 1) {
+				buffer.put((byte) ' ');
+			}
+		}
+		buffer.put((byte) '\n');
+	}
+
+	/**
+	 * Number of the spans of the changes, the runs of changed cells with the
+	 * same color in a row.
+	 * 
+	 * @param changed Sorted indexes of the changed cells, null for all cells.
+	 * 
+	 * @return Spans.
+	 */
+	public int countSpans(int changed[]) {
+		return putSpans(null, changed);
+	}
+
+	/**
+	 * Most characters of the changes of the game state.
+	 * 
+	 * @param spans Number of the spans.
+	 * 
+	 * @return Size.
+	 */
+	public int deltaSize(int spans) {
+		int span = 2 * Ascii.size(board.getColumns()) + Ascii.size(board.getRows())
+				+ Ascii.size(board.getNumOfColors()) + 4;
+
+		return 12 * (7 + players.size()) + spans * span;
+	}
+
+	/**
+	 * Write the changes of the game state in ASCII bytes. The header lines
+	 * are the same as in the full state, followed by the number of changed
+	 * spans and a line for each span with its x and y start, length and
+	 * color.
+	 * 
+	 * @param buffer  Buffer with at least deltaSize remaining bytes.
+	 * @param changed Sorted indexes of the changed cells, null for all cells.
+	 * @param spans   Number of the spans, as counted by countSpans.
+	 */
+	public void toDelta(ByteBuffer buffer, int changed[], int spans) {
+		putHeader(buffer);
+
+		Ascii.put(buffer, spans);
+		buffer.put((byte) '\n');
+
+		putSpans(buffer, changed);
+	}
+
+	/**
+	 * Write or only count the spans of the changes.
+	 * 
+	 * @param buffer  Buffer with enough remaining space, null for counting.
+	 * @param changed Sorted indexes of the changed cells, null for all cells.
+	 * 
+	 * @return Number of the spans.
+	 */
+	private int putSpans(ByteBuffer buffer, int changed[]) {
+		int columns = board.getColumns();
+		int cells = changed == null ? columns * board.getRows() : changed.length;
+		int count = 0;
+
+		for (int i = 0; i < cells;) {
+			int index = changed == null ? i : changed[i];
+			int x = index % columns;
+			int y = index / columns;
+			int color = board.getColorIndex(x, y);
+
+			int length = 1;
+			while (i + length < cells && (changed == null || changed[i + length] == index + length)
+					&& x + length < columns && board.getColorIndex(x + length, y) == color) {
+				length++;
+			}
+
+			if (buffer != null) {
+				Ascii.put(buffer, 1 + x);
+				buffer.put((byte) ' ');
+				Ascii.put(buffer, 1 + y);
+				buffer.put((byte) ' ');
+				Ascii.put(buffer, length);
+				buffer.put((byte) ' ');
+				Ascii.put(buffer, color);
+				buffer.put((byte) '\n');
+			}
+
+			count++;
+			i += length;
+		}
+
+		return count;
+	}
+
+	/**
+	 * Presenting game state as binary frame: the number of the following
+	 * bytes, then M, N, C, P, X and Y, the P used colors, all of them as four
+	 * byte integers, and the cells packed by the board.
+	 * 
+	 * @param buffer Buffer with enough remaining space.
+	 */
+	public void toBinary(ByteBuffer buffer) {
+		buffer.putInt(4 * (6 + players.size()) + board.packedSize());
+
+		buffer.putInt(board.getColumns());
+		buffer.putInt(board.getRows());
+		buffer.putInt(board.getNumOfColors());
+		buffer.putInt(players.size());
+
+		buffer.putInt(1 + playingNow().getX());
+		buffer.putInt(1 + playingNow().getY());
+
+		for (int p = 0; p < players.size(); p++) {
+			buffer.putInt(players.elementAt(p).getColor());
+		}
+
+		board.pack(buffer);
+	}
+}
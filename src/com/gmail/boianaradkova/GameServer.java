@@ -8,15 +8,14 @@
 package com.gmail.boianaradkova;
 
 import java.awt.Graphics;
+import java.io.IOException;
 import java.net.ServerSocket;
 import java.net.Socket;
-import java.util.Collections;
-import java.util.Vector;
 
 import javax.swing.JFrame;
 
 /**
- * The game engine.
+ * The game server window.
  * 
  * @author Boyana Kantarska
  */
@@ -28,92 +27,14 @@ public class GameServer extends JFrame {
 	/** Clients have given seconds to connect. */
 	static private int connectionTimeout = -1;
 
-	/** Each client should response in a given seconds. */
-	static private int responseTimeout = -1;
-	
-	/** Index of the player on turn. */
-	private int playingIndex = -1;
-
-	/** Game board with lock. */
-	private Board board = null;
-
-	/** Holding handle to each player as thread. */
-	private Vector<Player> players = new Vector<>();
+	/** The game engine. */
+	private Game game = new Game();
 
 	/** Drawing area for the board. */
 	private DrawingPanel canvas;
 
-	/** Order of the players should be random. */
-	private void shufflePlayers() {
-		Collections.shuffle(players);
-	}
-
-	/** Matching the playing player index with the handle. */
-	private Player playingNow() {
-		return players.elementAt(playingIndex);
-	}
-
-	/**
-	 * Check for blocked colors.
-	 * 
-	 * @param playerIndex Player on turn.
-	 * @param color       New selected color.
-	 * 
-	 * @return True if the color is not in use and false if the color is in use.
-	 */
-	private boolean isColorUsed(int playerIndex, int color) {
-		boolean isUsed = false;
-
-		for (int p = 0; p < players.size(); p++) {
-			/* If the player is the same do nothing. */
-			if (p == playerIndex) {
-				continue;
-			}
-
-			/* The color should correspond. */
-			if (color != ((Player) players.elementAt(p)).getColor()) {
-				continue;
-			}
-
-			isUsed = true;
-			break;
-		}
-
-		return isUsed;
-	}
-
-	/**
-	 * Check the position in first positioning of the player.
-	 * 
-	 * @param playerIndex Index of the player to be positioned.
-	 * @param x           X coordinate on the board.
-	 * @param y           Y coordinate on the board.
-	 * @param color       Color which should be used.
-	 * 
-	 * @return True if the position is available and false if the position is not
-	 *         available.
-	 */
-	private boolean isGoodPosition(int playerIndex, int x, int y) {
-		boolean isGood = true;
-		int color = board.getColorIndex(x, y);
-
-		for (int p = 0; p < playerIndex; p++) {
-			if (((Player) players.elementAt(p)).getColor() != color) {
-				continue;
-			}
-			if (((Player) players.elementAt(p)).getX() != x) {
-				continue;
-			}
-			if (((Player) players.elementAt(p)).getY() != y) {
-				continue;
-			}
-
-			isGood = false;
-			break;
-		}
-
-		return isGood;
-	}
+	/** Order of the player threads, null before they are started. */
+	private TurnScheduler scheduler = null;
 
 	/**
 	 * Constructor with parameters.
@@ -123,8 +44,11 @@ public class GameServer extends JFrame {
 	public GameServer(String title) {
 		super(title);
 
-		canvas = new DrawingPanel(board);
+		canvas = new DrawingPanel(null);
 		this.getContentPane().add(canvas);
+
+		/* The moves are kept in the journal instead of printing each state. */
+		game.setOnTurn(() -> canvas.repaintChanges());
 	}
 
 	/**
@@ -134,13 +58,22 @@ public class GameServer extends JFrame {
 	 */
 	@Override
 	public void paint(Graphics g) {
-		if (board == null) {
+		if (game.getBoard() == null) {
 			return;
 		}
 
 		// board.draw(g, this.getWidth(), this.getHeight());
 	}
 
+	/**
+	 * The game engine.
+	 * 
+	 * @return Game.
+	 */
+	public Game getGame() {
+		return game;
+	}
+
 	/**
 	 * Initialize board and players. Should be executed after the players are
 	 * connected.
@@ -148,119 +81,76 @@ public class GameServer extends JFrame {
 	public void init() {
 		Thread.currentThread().setPriority(Thread.MIN_PRIORITY);
 
-		int x, y;
-
-		/* Choosing rаndom number of colors. */
-		int numOfColors = (players.size() + 1) + (int) (Math.random() * 4 * players.size() - 1);
-
-		/* Choosing random dimensions of the board. */
-		int width = (players.size() + 1) + (int) (Math.random() * 9 * players.size() - 1);
-		int heigth = (players.size() + 1) + (int) (Math.random() * 9 * players.size() - 1);
-
-		/* Board creation. */
-		board = new Board(width, heigth, numOfColors);
+		game.init();
 
-		/* Initializing players and positioning on the board. */
-		for (int p = 0; p < players.size(); p++) {
-			do {
-				x = (int) (Math.random() * board.getColumns());
-				y = (int) (Math.random() * board.getRows());
-			} while (isGoodPosition(p, x, y) == false);
+		canvas.setBoard(game.getBoard());
+	}
 
-			((Player) players.elementAt(p)).init(x, y, board.getColorIndex(x, y));
+	/**
+	 * Continue the game of the latest checkpoint with the connected players,
+	 * or start a new game if there is no checkpoint.
+	 * 
+	 * @param snapshot Checkpoints of the game, null for none.
+	 */
+	public void resume(Snapshot snapshot) {
+		if (snapshot == null || snapshot.restore(game) == false) {
+			System.out.println("No checkpoint to resume, new game ...");
+			init();
+			return;
 		}
 
-		/* Players should play turns in random order. */
-		shufflePlayers();
+		Thread.currentThread().setPriority(Thread.MIN_PRIORITY);
 
-		/* Players' threads should be started. */
-		for (int p = 0; p < players.size(); p++) {
-			((Player) players.elementAt(p)).setPriority(Thread.MIN_PRIORITY);
-			((Player) players.elementAt(p)).start();
-		}
+		canvas.setBoard(game.getBoard());
+	}
 
-		System.out.println("Game server initialization ...");
+	/**
+	 * Start a thread for each active player, they play in the order of the
+	 * game from the player after the last turn.
+	 */
+	public void startPlayers() {
+		scheduler = new TurnScheduler(game.getPlayers(), Math.max(0, game.getPlayingIndex()));
 
-		canvas.setBoard(board);
+		for (int p = 0; p < game.getPlayers().size(); p++) {
+			if (game.getPlayers().elementAt(p).isActive() == true) {
+				game.getPlayers().elementAt(p).start();
+			}
+		}
 	}
 
 	/**
 	 * Turn of a player.
 	 * 
 	 * @param player Player who is on turn.
+	 * 
+	 * @return True if the player should play again and false if it is out of
+	 *         the game.
 	 */
-	synchronized public void doTurn(Player player) {
-		/* Synchronization is needed because the board is only one. */
-		while (board.isLocked() == true) {
-			try {
-				wait();
-			} catch (InterruptedException ex) {
-				ex.printStackTrace();
-			}
-		}
+	public boolean doTurn(Player player) {
+		long start = System.nanoTime();
 
-		/* Only one player on time should play. */
-		board.setLocked(true);
+		/* Only one player on time should play, in the order of the game. */
+		if (scheduler.await(player) == false) {
+			return false;
+		}
+		Metrics.get().turnWait.record(System.nanoTime() - start);
 
 		if (player.isActive() == true) {
-			for (int p = 0; p < players.size(); p++) {
-				if ((players.elementAt(p)) == player) {
-					playingIndex = p;
-				}
-			}
-
 			/* Game state is send via TCP socket. */
-			player.write(this.toString());
+			player.write(game.beginTurn(player));
 
 			/* Player's move is received via TCP socket. */
-			int color = player.read(responseTimeout);
-
-			/* Player answer should be valid. */
-			if (color < 1 || color > board.getNumOfColors() || isColorUsed(playingIndex, color) == true)
-				player.setNotActive();
-			else {
-				board.change(player.getX(), player.getY(), color);
-				player.setColor(color);
-			}
+			game.endTurn(player, player.read(game.getResponseTimeout()));
 		}
 
-		canvas.repaint();
-		System.out.println( this.toString() );
-
-		/* Unlock and notify the others. */
-		board.setLocked(false);
-		notifyAll();
-	}
-
-	/**
-	 * Add player to the list of the players.
-	 */
-	public void addPlayer(Player player) {
-		players.add(player);
-	}
-
-	/**
-	 * Presenting game state as string.
-	 */
-	public String toString() {
-		/* Text of the message sent by the server. */
-		String text = "";
-
-		text += board.getColumns() + " " + board.getRows() + " " + board.getNumOfColors() + " " + players.size() + "\n";
-
-		text += (1 + playingNow().getX()) + " " + (1 + playingNow().getY()) + "\n";
+		game.showTurn();
 
-		for (int p = 0; p < players.size(); p++) {
-			text += ((Player) players.elementAt(p)).getColor();
-
-			if (p != players.size() - 1) {
-				text += " ";
-			}
+		/* Only the next player is woken up. */
+		if (scheduler.handoff(player) == false) {
+			game.finish();
 		}
-		text += "\n";
-		text += board + "\n";
 
-		return text;
+		return player.isActive();
 	}
 
 	/** Wait players to connect. */
@@ -283,14 +173,16 @@ public class GameServer extends JFrame {
 				}
 
 				if (client != null) {
-					addPlayer(new Player("" + System.currentTimeMillis(), client, this));
+					Player player = new Player("" + System.currentTimeMillis(), client, this);
+					Metrics.get().connected(player);
+					game.addPlayer(player);
 				}
 			} while ((System.currentTimeMillis() - start) < connectionTimeout * 1000);
 		} catch (Exception ex) {
 			ex.printStackTrace();
 		}
 
-		System.out.println("Connection timeout, " + players.size() + " clients connected ...");
+		System.out.println("Connection timeout, " + game.getPlayers().size() + " clients connected ...");
 	}
 
 	/**
@@ -301,15 +193,54 @@ public class GameServer extends JFrame {
 	public static void main(String args[]) {
 		port = Integer.valueOf(args[0]);
 		connectionTimeout = Integer.valueOf(args[1]);
-		responseTimeout = Integer.valueOf(args[2]);
+		int responseTimeout = Integer.valueOf(args[2]);
 
-		GameServer game = new GameServer("Game Server ...");
+		Metrics.get().expose(Integer.getInteger("coloring.metrics", 10));
 
-		game.setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
-		game.setSize(800, 600);
-		// game.setVisible(true);
+		GameServer server = new GameServer("Game Server ...");
+		server.getGame().setResponseTimeout(responseTimeout);
+		server.getGame().setJournal(Journal.forGame("game-" + System.currentTimeMillis()));
 
-		game.host();
-		game.init();
+		/* Checkpoints are kept in a file given by coloring.snapshot. */
+		Snapshot snapshot = Snapshot.forGame();
+		server.getGame().setSnapshot(snapshot);
+		boolean resume = Boolean.getBoolean("coloring.resume");
+
+		server.setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
+		server.setSize(800, 600);
+		// server.setVisible(true);
+
+		/* Single event loop instead of a thread for each player. */
+		if ("nio".equalsIgnoreCase(System.getProperty("coloring.server"))) {
+			try {
+				EventLoop loop = new EventLoop(server.getGame(), responseTimeout);
+				loop.host(port, connectionTimeout);
+				if (resume == true) {
+					server.resume(snapshot);
+				} else {
+					server.init();
+				}
+				loop.play();
+			} catch (IOException ex) {
+				ex.printStackTrace();
+			}
+			return;
+		}
+
+		/* Clients are accepted on a virtual thread if they are chosen. */
+		Thread accepting = Threads.create("Host", server::host);
+		accepting.start();
+		try {
+			accepting.join();
+		} catch (InterruptedException ex) {
+			ex.printStackTrace();
+		}
+
+		if (resume == true) {
+			server.resume(snapshot);
+		} else {
+			server.init();
+		}
+		server.startPlayers();
 	}
 }
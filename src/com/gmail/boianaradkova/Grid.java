@@ -0,0 +1,227 @@
+/**
+ * Coloring, Version 0.1
+ * New Bulgarian University
+ *
+ * Copyright (c) 2018 Boyana Kantarska
+ */
+
+package com.gmail.boianaradkova;
+
+import java.nio.ByteBuffer;
+import java.nio.ShortBuffer;
+
+/**
+ * Flat row-major storage of the board cells. The cell (x, y) is kept on
+ * index y * columns + x, so walking a row is walking the memory.
+ *
+ * @author Boyana Kantarska
+ */
+abstract class Grid {
+	/** Number of cells. */
+	private final int size;
+
+	/**
+	 * Constructor.
+	 *
+	 * @param size Number of cells.
+	 */
+	protected Grid(int size) {
+		this.size = size;
+	}
+
+	/**
+	 * Number of cells.
+	 *
+	 * @return Size.
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * Color of a cell.
+	 *
+	 * @param index Cell index.
+	 *
+	 * @return Color.
+	 */
+	public abstract int get(int index);
+
+	/**
+	 * Change the color of a cell.
+	 *
+	 * @param index Cell index.
+	 * @param color New color.
+	 */
+	public abstract void set(int index, int color);
+
+	/**
+	 * Copy of all cells in the same kind of storage.
+	 *
+	 * @return New grid.
+	 */
+	public abstract Grid copy();
+
+	/**
+	 * Create the smallest storage able to hold the colors. The off-heap
+	 * storage is selected with the coloring.grid=direct system property.
+	 *
+	 * @param size        Number of cells.
+	 * @param numOfColors Number of colors on the board.
+	 *
+	 * @return Empty grid.
+	 */
+	static Grid create(int size, int numOfColors) {
+		boolean direct = "direct".equalsIgnoreCase(System.getProperty("coloring.grid"));
+
+		if (numOfColors <= 0xFF) {
+			return direct ? new DirectBytes(size) : new Bytes(size);
+		}
+
+		if (numOfColors <= 0xFFFF) {
+			return direct ? new DirectShorts(size) : new Shorts(size);
+		}
+
+		return new Ints(size);
+	}
+
+	/** One byte per cell, colors up to 255. */
+	private static final class Bytes extends Grid {
+		/** Cells. */
+		private final byte cells[];
+
+		Bytes(int size) {
+			super(size);
+			cells = new byte[size];
+		}
+
+		@Override
+		public int get(int index) {
+			return cells[index] & 0xFF;
+		}
+
+		@Override
+		public void set(int index, int color) {
+			cells[index] = (byte) color;
+		}
+
+		@Override
+		public Grid copy() {
+			Bytes copy = new Bytes(size());
+			System.arraycopy(cells, 0, copy.cells, 0, cells.length);
+			return copy;
+		}
+	}
+
+	/** Two bytes per cell, colors up to 65535. */
+	private static final class Shorts extends Grid {
+		/** Cells. */
+		private final short cells[];
+
+		Shorts(int size) {
+			super(size);
+			cells = new short[size];
+		}
+
+		@Override
+		public int get(int index) {
+			return cells[index] & 0xFFFF;
+		}
+
+		@Override
+		public void set(int index, int color) {
+			cells[index] = (short) color;
+		}
+
+		@Override
+		public Grid copy() {
+			Shorts copy = new Shorts(size());
+			System.arraycopy(cells, 0, copy.cells, 0, cells.length);
+			return copy;
+		}
+	}
+
+	/** Four bytes per cell for any number of colors. */
+	private static final class Ints extends Grid {
+		/** Cells. */
+		private final int cells[];
+
+		Ints(int size) {
+			super(size);
+			cells = new int[size];
+		}
+
+		@Override
+		public int get(int index) {
+			return cells[index];
+		}
+
+		@Override
+		public void set(int index, int color) {
+			cells[index] = color;
+		}
+
+		@Override
+		public Grid copy() {
+			Ints copy = new Ints(size());
+			System.arraycopy(cells, 0, copy.cells, 0, cells.length);
+			return copy;
+		}
+	}
+
+	/** One byte per cell kept outside of the heap. */
+	private static final class DirectBytes extends Grid {
+		/** Cells. */
+		private final ByteBuffer cells;
+
+		DirectBytes(int size) {
+			super(size);
+			cells = ByteBuffer.allocateDirect(size);
+		}
+
+		@Override
+		public int get(int index) {
+			return cells.get(index) & 0xFF;
+		}
+
+		@Override
+		public void set(int index, int color) {
+			cells.put(index, (byte) color);
+		}
+
+		@Override
+		public Grid copy() {
+			DirectBytes copy = new DirectBytes(size());
+			copy.cells.put(0, cells, 0, size());
+			return copy;
+		}
+	}
+
+	/** Two bytes per cell kept outside of the heap. */
+	private static final class DirectShorts extends Grid {
+		/** Cells. */
+		private final ShortBuffer cells;
+
+		DirectShorts(int size) {
+			super(size);
+			cells = ByteBuffer.allocateDirect(2 * size).asShortBuffer();
+		}
+
+		@Override
+		public int get(int index) {
+			return cells.get(index) & 0xFFFF;
+		}
+
+		@Override
+		public void set(int index, int color) {
+			cells.put(index, (short) color);
+		}
+
+		@Override
+		public Grid copy() {
+			DirectShorts copy = new DirectShorts(size());
+			copy.cells.put(0, cells, 0, size());
+			return copy;
+		}
+	}
+}
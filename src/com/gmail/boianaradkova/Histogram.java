@@ -0,0 +1,223 @@
+/**
+ * Coloring, Version 0.1
+ * New Bulgarian University
+ *
+ * Copyright (c) 2018 Boyana Kantarska
+ */
+
+package com.gmail.boianaradkova;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Lock free histogram of durations in nanoseconds. Each power of two is
+ * split into four buckets, so the percentiles are within 25% of the real
+ * values while the histogram keeps a fixed small size.
+ *
+ * @author Boyana Kantarska
+ */
+public final class Histogram {
+	/** Bits of a value used under its highest bit. */
+	private static final int SUB_BITS = 2;
+
+	/** Buckets of each power of two. */
+	private static final int SUB_BUCKETS = 1 << SUB_BITS;
+
+	/** Number of values in each bucket. */
+	private final AtomicLongArray counts = new AtomicLongArray(64 * SUB_BUCKETS);
+
+	/** Number of all values. */
+	private final LongAdder count = new LongAdder();
+
+	/** Sum of all values. */
+	private final LongAdder sum = new LongAdder();
+
+	/** Largest value. */
+	private final AtomicLong max = new AtomicLong();
+
+	/**
+	 * Bucket of a value.
+	 *
+	 * @param value Non negative value.
+	 *
+	 * @return Bucket index.
+	 */
+	private static int bucket(long value) {
+		if (value < SUB_BUCKETS) {
+			return (int) value;
+		}
+
+		int exponent = 63 - Long.numberOfLeadingZeros(value);
+		int sub = (int) (value >>> (exponent - SUB_BITS)) & (SUB_BUCKETS - 1);
+
+		return (exponent - SUB_BITS + 1) * SUB_BUCKETS + sub;
+	}
+
+	/**
+	 * Smallest value of a bucket.
+	 *
+	 * @param bucket Bucket index.
+	 *
+	 * @return Value.
+	 */
+	private static long lowest(int bucket) {
+		if (bucket < SUB_BUCKETS) {
+			return bucket;
+		}
+
+		int exponent = bucket / SUB_BUCKETS + SUB_BITS - 1;
+		long sub = bucket % SUB_BUCKETS;
+
+		return (SUB_BUCKETS + sub) << (exponent - SUB_BITS);
+	}
+
+	/**
+	 * Add a value.
+	 *
+	 * @param nanos Duration in nanoseconds.
+	 */
+	public void record(long nanos) {
+		if (nanos < 0) {
+			nanos = 0;
+		}
+
+		counts.incrementAndGet(bucket(nanos));
+		count.increment();
+		sum.add(nanos);
+
+		for (long old = max.get(); nanos > old && max.compareAndSet(old, nanos) == false; old = max.get()) {
+		}
+	}
+
+	/**
+	 * Value under which a part of the values are.
+	 *
+	 * @param quantile Part between zero and one.
+	 *
+	 * @return Highest value of the bucket of the quantile, in nanoseconds.
+	 */
+	public long percentile(double quantile) {
+		long total = count.sum();
+		if (total == 0) {
+			return 0;
+		}
+
+		long rank = (long) Math.ceil(quantile * total);
+		long seen = 0;
+
+		for (int b = 0; b < counts.length(); b++) {
+			seen += counts.get(b);
+			if (seen >= Math.max(rank, 1)) {
+				return Math.min(lowest(b + 1) - 1, max.get());
+			}
+		}
+
+		return max.get();
+	}
+
+	/**
+	 * Current values in microseconds.
+	 *
+	 * @return New snapshot.
+	 */
+	public Snapshot snapshot() {
+		long total = count.sum();
+
+		return new Snapshot(total, total == 0 ? 0 : sum.sum() / total / 1000, percentile(0.5) / 1000,
+				percentile(0.99) / 1000, max.get() / 1000);
+	}
+
+	/**
+	 * Short form for the log.
+	 *
+	 * @return Median, 99th percentile and maximum in microseconds.
+	 */
+	@Override
+	public String toString() {
+		return percentile(0.5) / 1000 + "/" + percentile(0.99) / 1000 + "/" + max.get() / 1000 + " us";
+	}
+
+	/**
+	 * Values of a histogram at a moment, in microseconds.
+	 */
+	public static final class Snapshot {
+		/** Number of values. */
+		private final long count;
+
+		/** Average value. */
+		private final long mean;
+
+		/** Median. */
+		private final long p50;
+
+		/** 99th percentile. */
+		private final long p99;
+
+		/** Largest value. */
+		private final long max;
+
+		/**
+		 * Constructor.
+		 *
+		 * @param count Number of values.
+		 * @param mean  Average value.
+		 * @param p50   Median.
+		 * @param p99   99th percentile.
+		 * @param max   Largest value.
+		 */
+		Snapshot(long count, long mean, long p50, long p99, long max) {
+			this.count = count;
+			this.mean = mean;
+			this.p50 = p50;
+			this.p99 = p99;
+			this.max = max;
+		}
+
+		/**
+		 * Number of values.
+		 *
+		 * @return Count.
+		 */
+		public long getCount() {
+			return count;
+		}
+
+		/**
+		 * Average value.
+		 *
+		 * @return Microseconds.
+		 */
+		public long getMean() {
+			return mean;
+		}
+
+		/**
+		 * Median.
+		 *
+		 * @return Microseconds.
+		 */
+		public long getP50() {
+			return p50;
+		}
+
+		/**
+		 * 99th percentile.
+		 *
+		 * @return Microseconds.
+		 */
+		public long getP99() {
+			return p99;
+		}
+
+		/**
+		 * Largest value.
+		 *
+		 * @return Microseconds.
+		 */
+		public long getMax() {
+			return max;
+		}
+	}
+}
@@ -0,0 +1,197 @@
+/**
+ * Coloring, Version 0.1
+ * New Bulgarian University
+ *
+ * Copyright (c) 2018 Boyana Kantarska
+ */
+
+package com.gmail.boianaradkova;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+/**
+ * Append-only binary record of a game. The header holds the magic number
+ * and the version, M, N, C and P as four byte integers, the initial cells
+ * packed by the board and the start X and Y of the P players in the order
+ * of their turns. Each move follows as one four byte integer with the
+ * player index in the high 15 bits, a bit set for a rejected move and the
+ * received color in the low 16 bits.
+ *
+ * The records are collected in a buffer and written to the file when it
+ * is full and when the game is finished, so a move costs no system call.
+ *
+ * @author Boyana Kantarska
+ */
+final class Journal {
+	/** First bytes of a journal, "CLRJ". */
+	static final int MAGIC = 0x434C524A;
+
+	/** Version of the format. */
+	static final int VERSION = 1;
+
+	/** Bit of a rejected move. */
+	static final int REJECTED = 1 << 16;
+
+	/** Size of the buffer of the records. */
+	private static final int BUFFER_SIZE = 64 * 1024;
+
+	/** File of the journal, null after closing or an error. */
+	private FileChannel channel;
+
+	/** Records waiting for writing. */
+	private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+
+	/**
+	 * Constructor.
+	 *
+	 * @param file Journal file, replaced if it exists.
+	 *
+	 * @throws IOException If the file can not be created.
+	 */
+	Journal(Path file) throws IOException {
+		channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+				StandardOpenOption.TRUNCATE_EXISTING);
+	}
+
+	/**
+	 * Journal of a game in the directory given by the coloring.journal
+	 * system property.
+	 *
+	 * @param name Name of the game.
+	 *
+	 * @return Journal or null if the journals are not kept or the file can
+	 *         not be created.
+	 */
+	static Journal forGame(String name) {
+		String directory = System.getProperty("coloring.journal");
+		if (directory == null) {
+			return null;
+		}
+
+		try {
+			return new Journal(Path.of(directory, name + ".journal"));
+		} catch (IOException ex) {
+			System.err.println("Journal is not kept: " + ex.toString());
+			return null;
+		}
+	}
+
+	/**
+	 * Write the buffered records to the file.
+	 *
+	 * @param required Bytes which should be free in the buffer afterwards.
+	 */
+	private void drain(int required) {
+		if (buffer.remaining() >= required || channel == null) {
+			return;
+		}
+
+		buffer.flip();
+		try {
+			while (buffer.hasRemaining() == true) {
+				channel.write(buffer);
+			}
+		} catch (IOException ex) {
+			abandon(ex);
+		}
+		buffer.clear();
+	}
+
+	/**
+	 * Stop the journal after a failed write.
+	 *
+	 * @param ex Error of the write.
+	 */
+	private void abandon(IOException ex) {
+		System.err.println("Journal is not written: " + ex.toString());
+
+		try {
+			channel.close();
+		} catch (IOException ignored) {
+		}
+		channel = null;
+	}
+
+	/**
+	 * Record the start of the game.
+	 *
+	 * @param board   Initial board.
+	 * @param players Players in the order of their turns.
+	 */
+	public void begin(Board board, List<Player> players) {
+		if (channel == null) {
+			return;
+		}
+
+		ByteBuffer header = ByteBuffer.allocate(4 * (6 + 2 * players.size()) + board.packedSize());
+
+		header.putInt(MAGIC);
+		header.putInt(VERSION);
+		header.putInt(board.getColumns());
+		header.putInt(board.getRows());
+		header.putInt(board.getNumOfColors());
+		header.putInt(players.size());
+
+		board.pack(header);
+
+		for (Player player : players) {
+			header.putInt(player.getX());
+			header.putInt(player.getY());
+		}
+		header.flip();
+
+		/* The header may be larger than the buffer, so it goes directly. */
+		drain(BUFFER_SIZE);
+		if (channel == null) {
+			return;
+		}
+
+		try {
+			while (header.hasRemaining() == true) {
+				channel.write(header);
+			}
+		} catch (IOException ex) {
+			abandon(ex);
+		}
+	}
+
+	/**
+	 * Record a move.
+	 *
+	 * @param player   Index of the player in the order of the turns.
+	 * @param color    Received color.
+	 * @param accepted True if the move is applied on the board.
+	 */
+	public void move(int player, int color, boolean accepted) {
+		if (channel == null) {
+			return;
+		}
+
+		drain(4);
+		buffer.putInt(player << 17 | (accepted == true ? 0 : REJECTED) | color & 0xFFFF);
+	}
+
+	/** Write the remaining records and close the file. */
+	public void close() {
+		if (channel == null) {
+			return;
+		}
+
+		drain(BUFFER_SIZE);
+		if (channel == null) {
+			return;
+		}
+
+		try {
+			channel.close();
+		} catch (IOException ex) {
+			System.err.println("Journal is not closed: " + ex.toString());
+		}
+		channel = null;
+	}
+}
@@ -0,0 +1,615 @@
+/**
+ * Coloring, Version 0.1
+ * New Bulgarian University
+ *
+ * Copyright (c) 2018 Boyana Kantarska
+ */
+
+package com.gmail.boianaradkova;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.management.ManagementFactory;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.management.JMException;
+import javax.management.MBeanServerConnection;
+import javax.management.ObjectName;
+import javax.management.openmbean.CompositeData;
+import javax.management.remote.JMXConnector;
+import javax.management.remote.JMXConnectorFactory;
+import javax.management.remote.JMXServiceURL;
+
+/**
+ * Headless load generator. Many bot clients are played in one process on a
+ * few selector threads, each of them with the protocol of the random client
+ * and a pluggable strategy. A bot connects again when its game is over, so
+ * the load stays the same for the whole run.
+ *
+ * The report has the turns of all bots per second, the number of bots
+ * which got a game and the time from a reply of a bot until its next game
+ * state, which is a whole round of its game. The turn latency of the server
+ * itself is read from the metrics of the server by JMX.
+ *
+ * @author Boyana Kantarska
+ */
+public class LoadGenerator {
+	/** Size of the buffer of the decoder of each bot. */
+	private static final int DECODER_BUFFER = 4 * 1024;
+
+	/** Milliseconds before a failed connection is tried again. */
+	private static final int RETRY_MILLIS = 100;
+
+	/** Connection of a bot to the server. */
+	private final class Bot {
+		/** Server channel, a new one for each game. */
+		private SocketChannel channel = null;
+
+		/** Received bytes, from the start of the next game state. */
+		private ByteBuffer in = ByteBuffer.allocate(DECODER_BUFFER);
+
+		/** Pending reply. */
+		private ByteBuffer out = ByteBuffer.allocate(0);
+
+		/** Bytes of the game state which the decoder may still read. */
+		private int frame = 0;
+
+		/** Reader of the game states, fed only with whole game states. */
+		private final ProtocolDecoder decoder = new ProtocolDecoder(new InputStream() {
+			@Override
+			public int read() {
+				if (frame == 0) {
+					return -1;
+				}
+
+				frame--;
+				return in.get() & 0xFF;
+			}
+
+			@Override
+			public int read(byte bytes[], int offset, int length) {
+				if (frame == 0) {
+					return -1;
+				}
+
+				length = Math.min(length, frame);
+				in.get(bytes, offset, length);
+				frame -= length;
+
+				return length;
+			}
+		}, DECODER_BUFFER);
+
+		/** Protocol of the next game state, the first one is always full text. */
+		private int protocol = 1;
+
+		/** Value of System.nanoTime() when the last reply was sent, 0 for none. */
+		private long replied = 0;
+
+		/** Next received byte which is not scanned for the end of a text state. */
+		private int scanned = 0;
+
+		/** Numbers of the text state found so far. */
+		private int numbers = 0;
+
+		/** Number being scanned. */
+		private int value = 0;
+
+		/** The number being scanned has digits. */
+		private boolean digits = false;
+
+		/** Numbers of the whole text state, -1 while it is not known. */
+		private int expected = -1;
+
+		/** Board width, height and number of players of the text state. */
+		private int columns = 0, rows = 0, players = 0;
+
+		/** Time for a connection again, after a failure. */
+		private long retryAt = 0;
+
+		/** The bot has received a game state. */
+		private boolean played = false;
+
+		/** Start scanning of a new game state. */
+		private void reset() {
+			scanned = 0;
+			numbers = 0;
+			value = 0;
+			digits = false;
+			expected = -1;
+		}
+
+		/**
+		 * Size of the first whole game state in the received bytes.
+		 *
+		 * @return Size in bytes or -1 if it is not received yet.
+		 */
+		private int frameSize() {
+			if (protocol == 3) {
+				if (in.position() < 4) {
+					return -1;
+				}
+
+				int size = 4 + in.getInt(0);
+				return in.position() >= size ? size : -1;
+			}
+
+			/* Text states end with the separator after a known count of numbers. */
+			for (; scanned < in.position(); scanned++) {
+				int c = in.get(scanned);
+
+				if (c >= '0' && c <= '9') {
+					value = 10 * value + c - '0';
+					digits = true;
+					continue;
+				}
+				if (digits == false) {
+					continue;
+				}
+
+				int number = value;
+				numbers++;
+				value = 0;
+				digits = false;
+
+				if (numbers == 1) {
+					columns = number;
+				} else if (numbers == 2) {
+					rows = number;
+				} else if (numbers == 4) {
+					players = number;
+					if (protocol == 1) {
+						expected = 6 + players + columns * rows;
+					}
+				} else if (protocol == 2 && numbers == 7 + players) {
+					expected = numbers + 4 * number;
+				}
+
+				if (numbers == expected) {
+					int size = scanned + 1;
+					reset();
+					return size;
+				}
+			}
+
+			return -1;
+		}
+	}
+
+	/** Selector thread with its bots. */
+	private final class Worker implements Runnable {
+		/** Selector of the channels of the bots. */
+		private final Selector selector;
+
+		/** Bots waiting to connect again. */
+		private final ArrayDeque<Bot> retries = new ArrayDeque<>();
+
+		/** Bots of the worker. */
+		private final ArrayList<Bot> bots = new ArrayList<>();
+
+		/**
+		 * Constructor.
+		 *
+		 * @param count Number of bots.
+		 *
+		 * @throws IOException If the selector is not available.
+		 */
+		Worker(int count) throws IOException {
+			selector = Selector.open();
+
+			for (int b = 0; b < count; b++) {
+				Bot bot = new Bot();
+				bots.add(bot);
+				connect(bot);
+			}
+		}
+
+		/**
+		 * Start a connection of a bot.
+		 *
+		 * @param bot Bot without connection.
+		 */
+		private void connect(Bot bot) {
+			bot.in.clear();
+			bot.reset();
+			bot.protocol = 1;
+			bot.replied = 0;
+
+			try {
+				bot.channel = SocketChannel.open();
+				bot.channel.configureBlocking(false);
+				bot.channel.connect(address);
+				bot.channel.register(selector, SelectionKey.OP_CONNECT, bot);
+			} catch (IOException ex) {
+				retry(bot);
+			}
+		}
+
+		/**
+		 * Close the connection of a bot and connect again later.
+		 *
+		 * @param bot Bot with a failed connection.
+		 */
+		private void retry(Bot bot) {
+			failures.increment();
+			close(bot);
+
+			bot.retryAt = System.nanoTime() + RETRY_MILLIS * 1000000L;
+			retries.add(bot);
+		}
+
+		/**
+		 * Close the connection of a bot.
+		 *
+		 * @param bot Bot.
+		 */
+		private void close(Bot bot) {
+			if (bot.channel == null) {
+				return;
+			}
+
+			try {
+				bot.channel.close();
+			} catch (IOException ex) {
+			}
+			bot.channel = null;
+		}
+
+		/**
+		 * Read the available bytes of a bot and reply to each whole game
+		 * state.
+		 *
+		 * @param bot Bot.
+		 * @param key Selection key of the bot.
+		 *
+		 * @throws IOException If the connection is broken or closed.
+		 */
+		private void receive(Bot bot, SelectionKey key) throws IOException {
+			if (bot.in.hasRemaining() == false) {
+				ByteBuffer larger = ByteBuffer.allocate(2 * bot.in.capacity());
+				bot.in.flip();
+				larger.put(bot.in);
+				bot.in = larger;
+			}
+
+			int bytes = bot.channel.read(bot.in);
+			if (bytes == -1) {
+				throw new IOException("Game over");
+			}
+			received.add(bytes);
+
+			for (int size = bot.frameSize(); size > 0; size = bot.frameSize()) {
+				long now = System.nanoTime();
+				if (bot.replied != 0) {
+					round.record(now - bot.replied);
+				}
+				turns.increment();
+				bot.played = true;
+
+				bot.in.flip();
+				bot.frame = size;
+				bot.decoder.read(bot.protocol);
+				bot.in.compact();
+
+				int color = strategy.choose(bot.decoder);
+				bot.out = ByteBuffer.wrap((color + " " + wanted + "\n").getBytes(StandardCharsets.US_ASCII));
+				bot.protocol = wanted;
+
+				sent.add(bot.channel.write(bot.out));
+				bot.replied = System.nanoTime();
+				if (bot.out.hasRemaining() == true) {
+					key.interestOps(SelectionKey.OP_READ | SelectionKey.OP_WRITE);
+				}
+			}
+		}
+
+		/** Play the bots until the generator is stopped. */
+		@Override
+		public void run() {
+			while (running == true) {
+				try {
+					selector.select(RETRY_MILLIS);
+				} catch (IOException ex) {
+					System.err.println("Selector failed: " + ex);
+					break;
+				}
+
+				Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+				while (keys.hasNext()) {
+					SelectionKey key = keys.next();
+					keys.remove();
+
+					Bot bot = (Bot) key.attachment();
+					if (key.isValid() == false) {
+						continue;
+					}
+
+					try {
+						if (key.isConnectable() == true) {
+							bot.channel.finishConnect();
+							connects.increment();
+							key.interestOps(SelectionKey.OP_READ);
+							continue;
+						}
+
+						if (key.isWritable() == true) {
+							sent.add(bot.channel.write(bot.out));
+							if (bot.out.hasRemaining() == false) {
+								key.interestOps(SelectionKey.OP_READ);
+							}
+						}
+
+						if (key.isReadable() == true) {
+							receive(bot, key);
+						}
+					} catch (IOException ex) {
+						/* A closed game is followed by a new one. */
+						if (bot.channel.isConnected() == true) {
+							close(bot);
+							connect(bot);
+						} else {
+							retry(bot);
+						}
+					}
+				}
+
+				long now = System.nanoTime();
+				while (retries.isEmpty() == false && retries.peek().retryAt <= now) {
+					connect(retries.poll());
+				}
+			}
+
+			for (Bot bot : bots) {
+				close(bot);
+			}
+			try {
+				selector.close();
+			} catch (IOException ex) {
+			}
+		}
+	}
+
+	/** Server address. */
+	private final InetSocketAddress address;
+
+	/** Protocol asked from the server: 1 full text, 2 changes only, 3 binary. */
+	private final int wanted;
+
+	/** Choice of the colors of all bots. */
+	private final ClientStrategy strategy;
+
+	/** The bots are played until it is false. */
+	private volatile boolean running = false;
+
+	/** Game states received by all bots. */
+	private final LongAdder turns = new LongAdder();
+
+	/** Bytes received by all bots. */
+	private final LongAdder received = new LongAdder();
+
+	/** Bytes sent by all bots. */
+	private final LongAdder sent = new LongAdder();
+
+	/** Established connections. */
+	private final LongAdder connects = new LongAdder();
+
+	/** Failed or refused connections. */
+	private final LongAdder failures = new LongAdder();
+
+	/** Time from a reply of a bot until its next game state. */
+	private final Histogram round = new Histogram();
+
+	/** Metrics of the server, null if they are not available. */
+	private MBeanServerConnection server = null;
+
+	/**
+	 * Constructor.
+	 *
+	 * @param address  Server address.
+	 * @param wanted   Protocol asked from the server.
+	 * @param strategy Choice of the colors, shared by all bots.
+	 */
+	public LoadGenerator(InetSocketAddress address, int wanted, ClientStrategy strategy) {
+		this.address = address;
+		this.wanted = wanted;
+		this.strategy = strategy;
+	}
+
+	/**
+	 * Read the metrics of the server during the run.
+	 *
+	 * @param server Connection to the JMX beans of the server, null for none.
+	 */
+	public void setServer(MBeanServerConnection server) {
+		this.server = server;
+	}
+
+	/**
+	 * Number of turns played on the server.
+	 *
+	 * @return Turns or -1 if the metrics are not available.
+	 */
+	private long serverTurns() {
+		if (server == null) {
+			return -1;
+		}
+
+		try {
+			return (Long) server.getAttribute(new ObjectName(Metrics.NAME), "Turns");
+		} catch (JMException | IOException ex) {
+			System.err.println("Server metrics are not available: " + ex);
+			server = null;
+			return -1;
+		}
+	}
+
+	/**
+	 * Server histogram in the short form of the log.
+	 *
+	 * @param attribute Name of the histogram in the metrics bean.
+	 *
+	 * @return Median, 99th percentile and maximum in microseconds.
+	 *
+	 * @throws JMException If the attribute is not available.
+	 * @throws IOException If the server is not reachable.
+	 */
+	private String serverHistogram(String attribute) throws JMException, IOException {
+		CompositeData values = (CompositeData) server.getAttribute(new ObjectName(Metrics.NAME), attribute);
+
+		return values.get("p50") + "/" + values.get("p99") + "/" + values.get("max") + " us";
+	}
+
+	/**
+	 * Play the bots for a given time.
+	 *
+	 * @param bots      Number of bots.
+	 * @param selectors Number of selector threads.
+	 * @param seconds   Duration of the load.
+	 *
+	 * @throws IOException If the selectors are not available.
+	 */
+	public void run(int bots, int selectors, int seconds) throws IOException {
+		running = true;
+
+		ArrayList<Worker> workers = new ArrayList<>();
+		ArrayList<Thread> threads = new ArrayList<>();
+		for (int s = 0; s < selectors; s++) {
+			Worker worker = new Worker(bots / selectors + (s < bots % selectors ? 1 : 0));
+			Thread thread = new Thread(worker, "Bots " + s);
+			thread.start();
+			workers.add(worker);
+			threads.add(thread);
+		}
+
+		long first = serverTurns();
+		long start = System.nanoTime();
+		try {
+			Thread.sleep(1000L * seconds);
+		} catch (InterruptedException ex) {
+			Thread.currentThread().interrupt();
+		}
+		running = false;
+		double elapsed = (System.nanoTime() - start) / 1e9;
+		long last = serverTurns();
+
+		for (Thread thread : threads) {
+			try {
+				thread.join();
+			} catch (InterruptedException ex) {
+				Thread.currentThread().interrupt();
+			}
+		}
+
+		int played = 0;
+		for (Worker worker : workers) {
+			for (Bot bot : worker.bots) {
+				played += bot.played == true ? 1 : 0;
+			}
+		}
+
+		System.out.println(bots + " bots on " + selectors + " selector threads for " + elapsed + " seconds");
+		System.out.println(played + " bots played, " + turns.sum() + " turns, " + (long) (turns.sum() / elapsed)
+				+ " turns per second");
+		System.out.println("received " + received.sum() + " B, sent " + sent.sum() + " B, connections "
+				+ connects.sum() + ", failed " + failures.sum());
+		System.out.println("client round of a game p50/p99/max " + round);
+
+		if (first == -1 || last == -1) {
+			System.out.println("server metrics are not available, see -Dcoloring.load.jmx");
+			return;
+		}
+
+		/* The histograms of the server are kept since its start. */
+		try {
+			System.out.println("server " + (last - first) + " turns, " + (long) ((last - first) / elapsed)
+					+ " turns per second");
+			System.out.println("server turn p50/p99/max " + serverHistogram("TurnTime") + ", serialize "
+					+ serverHistogram("Serialize") + ", send " + serverHistogram("Send") + ", reply "
+					+ serverHistogram("Reply") + ", flood " + serverHistogram("Flood"));
+		} catch (JMException | IOException ex) {
+			System.err.println("Server metrics are not available: " + ex);
+		}
+	}
+
+	/**
+	 * Main method. With -Dcoloring.load.lobby=&lt;players&gt; a lobby with
+	 * games of so many players is started on the port in the same process
+	 * and its metrics are reported. The metrics of a server in another
+	 * process are read with -Dcoloring.load.jmx=&lt;host:port&gt; from its
+	 * JMX agent.
+	 *
+	 * @param args Command line parameters: address, port, number of bots,
+	 *             seconds and optional number of selector threads.
+	 */
+	public static void main(String args[]) {
+		String address = args[0];
+		int port = Integer.valueOf(args[1]);
+		int bots = Integer.valueOf(args[2]);
+		int seconds = Integer.valueOf(args[3]);
+		int selectors = args.length > 4 ? Integer.valueOf(args[4]) : Runtime.getRuntime().availableProcessors();
+
+		int wanted = Integer.getInteger("coloring.protocol", 3);
+
+		ClientStrategy strategy = new RandomClientStrategy();
+		String name = System.getProperty("coloring.load.strategy");
+		if (name != null) {
+			try {
+				strategy = (ClientStrategy) Class.forName(name).getDeclaredConstructor().newInstance();
+			} catch (ReflectiveOperationException | ClassCastException ex) {
+				System.err.println("Strategy " + name + " is not available, random one is used: " + ex);
+			}
+		}
+
+		LoadGenerator generator = new LoadGenerator(new InetSocketAddress(address, port), wanted, strategy);
+		JMXConnector connector = null;
+
+		Integer matchSize = Integer.getInteger("coloring.load.lobby");
+		String jmx = System.getProperty("coloring.load.jmx");
+		if (matchSize != null) {
+			Lobby lobby = new Lobby(port, matchSize, 10);
+			lobby.setVerbose(false);
+
+			Thread hosting = Threads.create("Lobby", lobby::host);
+			hosting.setDaemon(true);
+			hosting.start();
+
+			Metrics.get().expose(0);
+			generator.setServer(ManagementFactory.getPlatformMBeanServer());
+		} else if (jmx != null) {
+			try {
+				JMXServiceURL url = new JMXServiceURL("service:jmx:rmi:///jndi/rmi://" + jmx + "/jmxrmi");
+				connector = JMXConnectorFactory.connect(url);
+				generator.setServer(connector.getMBeanServerConnection());
+			} catch (IOException ex) {
+				System.err.println("Server metrics are not available: " + ex);
+			}
+		}
+
+		try {
+			generator.run(bots, selectors, seconds);
+		} catch (IOException ex) {
+			ex.printStackTrace();
+		}
+
+		if (connector != null) {
+			try {
+				connector.close();
+			} catch (IOException ex) {
+			}
+		}
+
+		/* The games of the lobby in this process are not waited for. */
+		if (matchSize != null) {
+			System.exit(0);
+		}
+	}
+}
@@ -0,0 +1,144 @@
+/**
+ * Coloring, Version 0.1
+ * New Bulgarian University
+ *
+ * Copyright (c) 2018 Boyana Kantarska
+ */
+
+package com.gmail.boianaradkova;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.Vector;
+
+/**
+ * Matchmaker which keeps accepting clients and groups them into independent
+ * games, each one played on its own thread.
+ *
+ * @author Boyana Kantarska
+ */
+public class Lobby {
+	/** Clients which may wait for the accept loop, a burst of them is not refused. */
+	private static final int BACKLOG = 1024;
+
+	/** Port number for the lobby. */
+	private int port = -1;
+
+	/** Number of players in each game. */
+	private int matchSize = -1;
+
+	/** Each client should response in a given seconds. */
+	private int responseTimeout = -1;
+
+	/** Number of started games. */
+	private int games = 0;
+
+	/** Start messages of the games are printed. */
+	private boolean verbose = true;
+
+	/**
+	 * Constructor.
+	 *
+	 * @param port            Port number for the lobby.
+	 * @param matchSize       Number of players in each game.
+	 * @param responseTimeout Seconds for each response.
+	 */
+	public Lobby(int port, int matchSize, int responseTimeout) {
+		this.port = port;
+		this.matchSize = matchSize;
+		this.responseTimeout = responseTimeout;
+	}
+
+	/**
+	 * Play a game with the waiting clients.
+	 *
+	 * @param clients Sockets of the clients.
+	 */
+	private void start(Vector<Socket> clients) {
+		games++;
+
+		Game game = new Game();
+		game.setResponseTimeout(responseTimeout);
+		game.setVerbose(verbose);
+		game.setJournal(Journal.forGame("game-" + System.currentTimeMillis() + "-" + games));
+
+		for (Socket client : clients) {
+			try {
+				Player player = new Player("" + System.currentTimeMillis(), client, null);
+				Metrics.get().connected(player);
+				game.addPlayer(player);
+			} catch (IOException ex) {
+				System.err.println("Client dropped before the game: " + ex);
+			}
+		}
+
+		if (verbose == true) {
+			System.out.println("Game " + games + " started with " + game.getPlayers().size() + " players ...");
+		}
+
+		/* A game blocks on its clients, so no pool may keep it waiting. */
+		Threads.create("Game " + games, () -> {
+			game.init();
+			game.play();
+
+			for (Player player : game.getPlayers()) {
+				player.close();
+			}
+		}).start();
+	}
+
+	/**
+	 * Print the start messages of the games.
+	 *
+	 * @param verbose True to print and false to keep quiet.
+	 */
+	public void setVerbose(boolean verbose) {
+		this.verbose = verbose;
+	}
+
+	/** Accept clients until the lobby is stopped. */
+	public void host() {
+		Vector<Socket> waiting = new Vector<>();
+
+		try (ServerSocket server = new ServerSocket(port, BACKLOG)) {
+			System.out.println("Lobby started on port " + port + " ...");
+
+			while (true) {
+				waiting.add(server.accept());
+
+				if (waiting.size() == matchSize) {
+					start(waiting);
+					waiting = new Vector<>();
+				}
+			}
+		} catch (IOException ex) {
+			ex.printStackTrace();
+		}
+	}
+
+	/**
+	 * Main method.
+	 *
+	 * @param args Command line parameters: port, players in a game and
+	 *             response timeout.
+	 */
+	public static void main(String args[]) {
+		int port = Integer.valueOf(args[0]);
+		int matchSize = Integer.valueOf(args[1]);
+		int responseTimeout = Integer.valueOf(args[2]);
+
+		Metrics.get().expose(Integer.getInteger("coloring.metrics", 10));
+
+		Lobby lobby = new Lobby(port, matchSize, responseTimeout);
+
+		/* Clients are accepted on a virtual thread if they are chosen. */
+		Thread accepting = Threads.create("Lobby", lobby::host);
+		accepting.start();
+		try {
+			accepting.join();
+		} catch (InterruptedException ex) {
+			ex.printStackTrace();
+		}
+	}
+}
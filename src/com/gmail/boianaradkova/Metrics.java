@@ -0,0 +1,248 @@
+/**
+ * Coloring, Version 0.1
+ * New Bulgarian University
+ *
+ * Copyright (c) 2018 Boyana Kantarska
+ */
+
+package com.gmail.boianaradkova;
+
+import java.lang.management.ManagementFactory;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.management.JMException;
+import javax.management.ObjectName;
+
+/**
+ * Process wide registry of the turn metrics, fed by the games and the
+ * players. It is exposed by JMX and by a periodic line in the log.
+ *
+ * @author Boyana Kantarska
+ */
+public final class Metrics implements MetricsMXBean {
+	/** Name of the JMX bean. */
+	static final String NAME = "com.gmail.boianaradkova:type=Metrics";
+
+	/** The only registry. */
+	private static final Metrics metrics = new Metrics();
+
+	/** Played turns. */
+	private final LongAdder turns = new LongAdder();
+
+	/** Invalid or missing moves. */
+	private final LongAdder invalidMoves = new LongAdder();
+
+	/** Active players in all games. */
+	private final AtomicInteger activePlayers = new AtomicInteger();
+
+	/** Bytes sent to all clients. */
+	private final LongAdder bytesSent = new LongAdder();
+
+	/** Bytes received from all clients. */
+	private final LongAdder bytesReceived = new LongAdder();
+
+	/** Players with connection. */
+	private final Set<Player> players = ConcurrentHashMap.newKeySet();
+
+	/** Building of the game state messages. */
+	final Histogram serialize = new Histogram();
+
+	/** Sending of the game state messages. */
+	final Histogram send = new Histogram();
+
+	/** Waiting for the replies of the clients. */
+	final Histogram reply = new Histogram();
+
+	/** Applying of the moves. */
+	final Histogram flood = new Histogram();
+
+	/** Showing of the game after each turn. */
+	final Histogram repaint = new Histogram();
+
+	/** Waiting of the player threads for their turn. */
+	final Histogram turnWait = new Histogram();
+
+	/** Whole turns, from the game state until the move is applied. */
+	final Histogram turnTime = new Histogram();
+
+	/** Thread of the log line, null before it is started. */
+	private ScheduledExecutorService logger = null;
+
+	/** Registry. */
+	private Metrics() {
+	}
+
+	/**
+	 * The process wide registry.
+	 *
+	 * @return Registry.
+	 */
+	public static Metrics get() {
+		return metrics;
+	}
+
+	/**
+	 * Register the JMX bean and print a log line periodically.
+	 *
+	 * @param seconds Seconds between the log lines, zero for no log.
+	 */
+	public synchronized void expose(int seconds) {
+		try {
+			ObjectName name = new ObjectName(NAME);
+			if (ManagementFactory.getPlatformMBeanServer().isRegistered(name) == false) {
+				ManagementFactory.getPlatformMBeanServer().registerMBean(this, name);
+			}
+		} catch (JMException ex) {
+			System.err.println("Metrics are not available by JMX: " + ex);
+		}
+
+		if (seconds > 0 && logger == null) {
+			logger = Executors.newSingleThreadScheduledExecutor(task -> {
+				Thread thread = new Thread(task, "metrics");
+				thread.setDaemon(true);
+				return thread;
+			});
+			logger.scheduleAtFixedRate(() -> System.out.println(this), seconds, seconds, TimeUnit.SECONDS);
+		}
+	}
+
+	/** Count a played turn. */
+	void turn() {
+		turns.increment();
+	}
+
+	/** Count an invalid or missing move. */
+	void invalidMove() {
+		invalidMoves.increment();
+	}
+
+	/**
+	 * Change the number of the active players.
+	 *
+	 * @param delta Added players, negative for removed.
+	 */
+	void active(int delta) {
+		activePlayers.addAndGet(delta);
+	}
+
+	/**
+	 * Count sent bytes.
+	 *
+	 * @param bytes Bytes.
+	 */
+	void sent(long bytes) {
+		bytesSent.add(bytes);
+	}
+
+	/**
+	 * Count received bytes.
+	 *
+	 * @param bytes Bytes.
+	 */
+	void received(long bytes) {
+		bytesReceived.add(bytes);
+	}
+
+	/**
+	 * Follow the traffic of a connected player.
+	 *
+	 * @param player Player.
+	 */
+	void connected(Player player) {
+		players.add(player);
+	}
+
+	/**
+	 * Forget a player whose connection is closed.
+	 *
+	 * @param player Player.
+	 */
+	void disconnected(Player player) {
+		players.remove(player);
+	}
+
+	@Override
+	public long getTurns() {
+		return turns.sum();
+	}
+
+	@Override
+	public long getInvalidMoves() {
+		return invalidMoves.sum();
+	}
+
+	@Override
+	public int getActivePlayers() {
+		return activePlayers.get();
+	}
+
+	@Override
+	public long getBytesSent() {
+		return bytesSent.sum();
+	}
+
+	@Override
+	public long getBytesReceived() {
+		return bytesReceived.sum();
+	}
+
+	@Override
+	public String[] getPlayerTraffic() {
+		return players.stream()
+				.map(player -> player.getPlayerName() + " " + player.getBytesSent() + " " + player.getBytesReceived())
+				.toArray(String[]::new);
+	}
+
+	@Override
+	public Histogram.Snapshot getSerialize() {
+		return serialize.snapshot();
+	}
+
+	@Override
+	public Histogram.Snapshot getSend() {
+		return send.snapshot();
+	}
+
+	@Override
+	public Histogram.Snapshot getReply() {
+		return reply.snapshot();
+	}
+
+	@Override
+	public Histogram.Snapshot getFlood() {
+		return flood.snapshot();
+	}
+
+	@Override
+	public Histogram.Snapshot getRepaint() {
+		return repaint.snapshot();
+	}
+
+	@Override
+	public Histogram.Snapshot getTurnWait() {
+		return turnWait.snapshot();
+	}
+
+	@Override
+	public Histogram.Snapshot getTurnTime() {
+		return turnTime.snapshot();
+	}
+
+	/**
+	 * Log line with the totals and the median, 99th percentile and maximum
+	 * of each duration.
+	 */
+	@Override
+	public String toString() {
+		return "Metrics: turns " + getTurns() + ", invalid " + getInvalidMoves() + ", active " + getActivePlayers()
+				+ ", sent " + getBytesSent() + " B, received " + getBytesReceived() + " B, serialize " + serialize
+				+ ", send " + send + ", reply " + reply + ", flood " + flood + ", repaint " + repaint + ", turn wait "
+				+ turnWait + ", turn " + turnTime;
+	}
+}
@@ -0,0 +1,107 @@
+/**
+ * Coloring, Version 0.1
+ * New Bulgarian University
+ *
+ * Copyright (c) 2018 Boyana Kantarska
+ */
+
+package com.gmail.boianaradkova;
+
+/**
+ * Management interface of the server metrics, seen in JConsole and the other
+ * JMX clients. The durations are in microseconds.
+ *
+ * @author Boyana Kantarska
+ */
+public interface MetricsMXBean {
+	/**
+	 * Number of played turns.
+	 *
+	 * @return Turns.
+	 */
+	long getTurns();
+
+	/**
+	 * Number of invalid or missing moves.
+	 *
+	 * @return Moves.
+	 */
+	long getInvalidMoves();
+
+	/**
+	 * Number of active players in all games.
+	 *
+	 * @return Players.
+	 */
+	int getActivePlayers();
+
+	/**
+	 * Bytes sent to all clients.
+	 *
+	 * @return Bytes.
+	 */
+	long getBytesSent();
+
+	/**
+	 * Bytes received from all clients.
+	 *
+	 * @return Bytes.
+	 */
+	long getBytesReceived();
+
+	/**
+	 * Traffic of each connected player.
+	 *
+	 * @return Lines with the name, the sent and the received bytes.
+	 */
+	String[] getPlayerTraffic();
+
+	/**
+	 * Time to build the game state messages.
+	 *
+	 * @return Histogram values.
+	 */
+	Histogram.Snapshot getSerialize();
+
+	/**
+	 * Time to send the game state messages.
+	 *
+	 * @return Histogram values.
+	 */
+	Histogram.Snapshot getSend();
+
+	/**
+	 * Time between the game state and the reply of the client.
+	 *
+	 * @return Histogram values.
+	 */
+	Histogram.Snapshot getReply();
+
+	/**
+	 * Time to apply the moves on the board.
+	 *
+	 * @return Histogram values.
+	 */
+	Histogram.Snapshot getFlood();
+
+	/**
+	 * Time to show the game after each turn.
+	 *
+	 * @return Histogram values.
+	 */
+	Histogram.Snapshot getRepaint();
+
+	/**
+	 * Time of the player threads waiting for their turn.
+	 *
+	 * @return Histogram values.
+	 */
+	Histogram.Snapshot getTurnWait();
+	/**
+	 * Time of the whole turns, from the game state until the move is
+	 * applied.
+	 *
+	 * @return Histogram values.
+	 */
+	Histogram.Snapshot getTurnTime();
+}
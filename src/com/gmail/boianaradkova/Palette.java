@@ -0,0 +1,156 @@
+/**
+ * Coloring, Version 0.1
+ * New Bulgarian University
+ *
+ * Copyright (c) 2018 Boyana Kantarska
+ */
+
+package com.gmail.boianaradkova;
+
+import java.awt.Color;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Colors of the cells computed once for each number of colors.
+ *
+ * @author Boyana Kantarska
+ */
+final class Palette {
+	/** Palettes already computed. */
+	private static final ConcurrentHashMap<Integer, Palette> palettes = new ConcurrentHashMap<>();
+
+	/** Color object of each color index. */
+	private final Color colors[];
+
+	/** RGB value of each color index. */
+	private final int rgb[];
+
+	/**
+	 * Convert color index from HSV to RGB color value.
+	 * 
+	 * https://en.wikipedia.org/wiki/HSL_and_HSV
+	 * 
+	 * @param val         Color index.
+	 * @param numOfColors Number of colors on the board.
+	 * 
+	 * @return Color object.
+	 */
+	private static Color convert(int val, int numOfColors) {
+		int Hi;
+		int R = 0, G = 0, B = 0;
+		double H, S, V;
+		double f, p, q, t;
+
+		int min_val = 1;
+		int max_val = numOfColors;
+
+		val -= min_val;
+		max_val -= min_val;
+
+		H = max_val == 0 ? 0 : 360 * val / max_val;
+		S = 0.8;
+		V = 0.8;
+
+		Hi = (int) (H / 60) % 6;
+
+		f = H / 60 - Hi;
+		p = V * (1 - S);
+		q = V * (1 - f * S);
+		t = V * (1 - (1 - f) * S);
+
+		switch (Hi) {
+		case 0:
+			R = (int) (V * 255);
+			G = (int) (t * 255);
+			B = (int) (p * 255);
+			break;
+		case 1:
+			R = (int) (q * 255);
+			G = (int) (V * 255);
+			B = (int) (p * 255);
+			break;
+		case 2:
+			R = (int) (p * 255);
+			G = (int) (V * 255);
+			B = (int) (t * 255);
+			break;
+		case 3:
+			R = (int) (p * 255);
+			G = (int) (q * 255);
+			B = (int) (V * 255);
+			break;
+		case 4:
+			R = (int) (t * 255);
+			G = (int) (p * 255);
+			B = (int) (V * 255);
+			break;
+		case 5:
+			R = (int) (V * 255);
+			G = (int) (p * 255);
+			B = (int) (q * 255);
+			break;
+		}
+
+		while (R > 0xFF) {
+			R >>= 1;
+		}
+		while (G > 0xFF) {
+			G >>= 1;
+		}
+		while (B > 0xFF) {
+			B >>= 1;
+		}
+
+		return new Color(R, G, B);
+	}
+
+	/**
+	 * Constructor.
+	 *
+	 * @param numOfColors Number of colors on the board.
+	 */
+	private Palette(int numOfColors) {
+		colors = new Color[numOfColors + 1];
+		rgb = new int[numOfColors + 1];
+
+		/* Index zero is not a color on the board. */
+		colors[0] = Color.BLACK;
+		rgb[0] = colors[0].getRGB();
+
+		for (int val = 1; val <= numOfColors; val++) {
+			colors[val] = convert(val, numOfColors);
+			rgb[val] = colors[val].getRGB();
+		}
+	}
+
+	/**
+	 * Palette for a number of colors.
+	 *
+	 * @param numOfColors Number of colors on the board.
+	 *
+	 * @return Shared palette.
+	 */
+	static Palette of(int numOfColors) {
+		return palettes.computeIfAbsent(numOfColors, Palette::new);
+	}
+
+	/**
+	 * Color object of a color index.
+	 *
+	 * @param val Color index.
+	 *
+	 * @return Color.
+	 */
+	public Color color(int val) {
+		return colors[val];
+	}
+
+	/**
+	 * RGB values of all color indexes.
+	 *
+	 * @return Shared array which should not be changed.
+	 */
+	public int[] rgb() {
+		return rgb;
+	}
+}
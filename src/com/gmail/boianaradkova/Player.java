@@ -7,30 +7,43 @@
 
 package com.gmail.boianaradkova;
 
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
 import java.io.IOException;
-import java.io.BufferedReader;
-import java.io.InputStreamReader;
-import java.io.PrintWriter;
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
 
 /**
  * Presentation of each player.
  * 
  * @author Boyana Kantarska
  */
-class Player extends Thread {
+class Player implements Runnable {
 	/** Connection socket for each player. */
 	private Socket socket;
 
 	/** Input stream. */
-	private BufferedReader in;
+	private InputStream in;
+
+	/** Characters of the line being received. */
+	private StringBuilder line = new StringBuilder();
 
 	/** Output stream. */
-	private PrintWriter out;
+	private OutputStream out;
+
+	/** Buffer of the messages reused between the turns. */
+	private ByteBuffer message = ByteBuffer.allocate(0);
 
 	/** Handle to the game object. */
 	private GameServer game;
 
+	/** Thread playing the turns, null if the player has no own thread. */
+	private Thread thread = null;
+
 	/** Player's name. */
 	private String name;
 
@@ -49,12 +62,39 @@ class Player extends Thread {
 	/** Player is active until the response is correct. */
 	private boolean active;
 
+	/** Player without a client, not counted in the metrics. */
+	private boolean headless = false;
+
+	/** Protocol version asked by the client, 2 for changes only, 3 for binary. */
+	private int protocol = 1;
+
+	/** Change log mark of the last state sent to the client. */
+	private long seen = 0;
+
+	/** Nanoseconds between the request and the response in the last turn. */
+	private long lastLatency = 0;
+
+	/** Nanoseconds of the slowest response. */
+	private long maxLatency = 0;
+
+	/** Nanoseconds of all responses. */
+	private long totalLatency = 0;
+
+	/** Number of measured responses. */
+	private int responses = 0;
+
+	/** Bytes sent to the client. */
+	private long bytesSent = 0;
+
+	/** Bytes received from the client. */
+	private long bytesReceived = 0;
+
 	/**
 	 * Constructor.
 	 * 
 	 * @param name   Name of the player.
 	 * @param socket Socket handle.
-	 * @param game   Game handle.
+	 * @param game   Game server handle, null if the player has no own thread.
 	 * 
 	 * @throws IOException If the socket is broken.
 	 */
@@ -65,8 +105,44 @@ class Player extends Thread {
 
 		this.socket = socket;
 
-		this.in = new BufferedReader(new InputStreamReader(socket.getInputStream()));
-		this.out = new PrintWriter(socket.getOutputStream());
+		this.in = new BufferedInputStream(socket.getInputStream());
+		this.out = new BufferedOutputStream(socket.getOutputStream());
+	}
+
+	/**
+	 * Constructor of a player without own connection, its messages are
+	 * delivered by the game event loop.
+	 * 
+	 * @param name Name of the player.
+	 * @param game Game server handle, null if the player has no own thread.
+	 */
+	public Player(String name, GameServer game) {
+		this.game = game;
+		this.name = name;
+		this.score = 0;
+	}
+
+	/** Close the connection at the end of the game. */
+	public void close() {
+		Metrics.get().disconnected(this);
+
+		if (socket == null) {
+			return;
+		}
+
+		try {
+			socket.close();
+		} catch (IOException ex) {
+		}
+	}
+
+	/**
+	 * Player's name.
+	 * 
+	 * @return Name.
+	 */
+	public String getPlayerName() {
+		return name;
 	}
 
 	/**
@@ -80,16 +156,30 @@ class Player extends Thread {
 		this.color = color;
 		this.x = x;
 		this.y = y;
-		active = true;
 
-		System.out.println("Player " + name + " initialized ...");
+		if (active == false && headless == false) {
+			Metrics.get().active(+1);
+		}
+		active = true;
 	}
 
 	/** Sets the player not to be active. */
 	public void setNotActive() {
+		if (active == true && headless == false) {
+			Metrics.get().active(-1);
+		}
 		active = false;
 	}
 
+	/**
+	 * Play without a client, set before the initialization.
+	 * 
+	 * @param headless True for a player which is not counted in the metrics.
+	 */
+	public void setHeadless(boolean headless) {
+		this.headless = headless;
+	}
+
 	/**
 	 * Check is the player active.
 	 * 
@@ -135,32 +225,118 @@ class Player extends Thread {
 		return color;
 	}
 
+	/**
+	 * Set the player's score.
+	 * 
+	 * @param score Number of cells owned.
+	 */
+	public void setScore(int score) {
+		this.score = score;
+	}
+
+	/**
+	 * Get the player's score.
+	 * 
+	 * @return Number of cells owned, -1 after a move until the game measures
+	 *         it.
+	 */
+	public int getScore() {
+		return score;
+	}
+
+	/**
+	 * Read a line from the socket before a deadline. The socket timeout is
+	 * set to the remaining time before each blocking read, so the line is
+	 * returned as soon as it arrives.
+	 * 
+	 * @param deadline Value of System.nanoTime() when the waiting ends, or
+	 *                 zero for no deadline.
+	 * 
+	 * @return Line without the line terminator or null if the stream ended.
+	 * 
+	 * @throws IOException If the socket is broken or the deadline passed.
+	 */
+	private String readLine(long deadline) throws IOException {
+		line.setLength(0);
+
+		while (true) {
+			if (deadline != 0) {
+				long remaining = (deadline - System.nanoTime()) / 1000000;
+				if (remaining <= 0) {
+					throw new SocketTimeoutException("Response deadline passed");
+				}
+				socket.setSoTimeout((int) Math.min(remaining, Integer.MAX_VALUE));
+			}
+
+			int c = in.read();
+
+			if (c == -1) {
+				return line.length() == 0 ? null : line.toString();
+			}
+			bytesReceived++;
+
+			if (c == '\n') {
+				break;
+			}
+
+			if (c != '\r') {
+				line.append((char) c);
+			}
+		}
+
+		return line.toString();
+	}
+
 	/**
 	 * Read data from the socket in given timeout.
 	 * 
-	 * @param timeout Number or seconds to wait for response.
+	 * @param timeout Number or seconds to wait for response, zero waits without
+	 *                limit.
 	 * 
-	 * @return Chosen color.
+	 * @return Chosen color or zero if there is no correct response in time.
 	 */
 	public int read(int timeout) {
-		int color = 0;
 		String str = "";
 
-		try {
-			Thread.currentThread().sleep(1000 * timeout);
-		} catch (InterruptedException ex) {
-			System.err.println("Thread can not be interrupted: " + ex);
-		}
+		long start = System.nanoTime();
+		long deadline = timeout > 0 ? start + 1000000000L * timeout : 0;
+		long received = bytesReceived;
 
 		try {
-			str = in.readLine();
+			str = readLine(deadline);
+		} catch (SocketTimeoutException ex) {
+			str = "";
+			System.err.println("Response timeout of " + timeout + " seconds expired.");
 		} catch (IOException ex) {
 			str = "";
 			System.err.println("Receive socket message failed: " + ex);
 		}
 
+		recordLatency(System.nanoTime() - start);
+		Metrics.get().received(bytesReceived - received);
+
+		return parseReply(str);
+	}
+
+	/**
+	 * Parse the response of the client. The chosen color can be followed by
+	 * the protocol version which the client wants from the next turn.
+	 * 
+	 * @param str Received line.
+	 * 
+	 * @return Chosen color or zero if the response is not correct.
+	 */
+	public int parseReply(String str) {
+		int color = 0;
+
 		try {
-			color = (new Integer(str)).intValue();
+			String values[] = str.trim().split("\\s+");
+
+			color = Integer.parseInt(values[0]);
+
+			if (values.length > 1) {
+				protocol = Integer.parseInt(values[1]);
+			}
 		} catch (Exception ex) {
 			color = 0;
 			System.err.println("Incorrect data receieved: " + ex.toString());
@@ -169,31 +345,191 @@ class Player extends Thread {
 		return color;
 	}
 
+	/**
+	 * Protocol version asked by the client.
+	 * 
+	 * @return Version.
+	 */
+	public int getProtocol() {
+		return protocol;
+	}
+
+	/**
+	 * Change log mark of the last state sent to the client.
+	 * 
+	 * @return Mark.
+	 */
+	public long getSeen() {
+		return seen;
+	}
+
+	/**
+	 * Remember the change log mark of the state sent to the client.
+	 * 
+	 * @param seen Mark.
+	 */
+	public void setSeen(long seen) {
+		this.seen = seen;
+	}
+
+	/**
+	 * Measure the response time of a turn.
+	 * 
+	 * @param latency Nanoseconds between the request and the response.
+	 */
+	public void recordLatency(long latency) {
+		lastLatency = latency;
+		maxLatency = Math.max(maxLatency, latency);
+		totalLatency += latency;
+		responses++;
+
+		Metrics.get().reply.record(latency);
+	}
+
+	/**
+	 * Response time of the last turn.
+	 * 
+	 * @return Nanoseconds.
+	 */
+	public long getLastLatency() {
+		return lastLatency;
+	}
+
+	/**
+	 * Slowest response time.
+	 * 
+	 * @return Nanoseconds.
+	 */
+	public long getMaxLatency() {
+		return maxLatency;
+	}
+
+	/**
+	 * Average response time.
+	 * 
+	 * @return Nanoseconds.
+	 */
+	public long getAverageLatency() {
+		return responses == 0 ? 0 : totalLatency / responses;
+	}
+
+	/**
+	 * Number of measured responses.
+	 * 
+	 * @return Responses.
+	 */
+	public int getResponses() {
+		return responses;
+	}
+
 	/**
 	 * Write data into socket.
 	 * 
 	 * @param str Data which should be written.
 	 */
 	public void write(String str) {
-		out.print(str);
-		out.flush();
+		write(ByteBuffer.wrap(str.getBytes(StandardCharsets.US_ASCII)));
 	}
 
-	/** Try to make move on each thread loop. 
-	 * The thread is started fulfilling the "true " condition the game is working.
-	 * The thread falls asleep by returning a number between 0 and 10 during this time.
-	 * Exception Capture Condition, which transmit directly about the error.
+	/**
+	 * Write data into socket.
 	 * 
+	 * @param buffer Data between the position and the limit of the buffer.
 	 */
-	public void run() {
-		while (true) {
-			game.doTurn(this);
+	public void write(ByteBuffer buffer) {
+		long start = System.nanoTime();
 
-			try {
-				sleep((long) (Math.random() * 100));
-			} catch (InterruptedException ex) {
-				ex.printStackTrace();
-			}
+		try {
+			out.write(buffer.array(), buffer.arrayOffset() + buffer.position(), buffer.remaining());
+			out.flush();
+			countSent(buffer.remaining());
+		} catch (IOException ex) {
+			System.err.println("Send socket message failed: " + ex);
+		}
+
+		Metrics.get().send.record(System.nanoTime() - start);
+	}
+
+	/**
+	 * Count the bytes sent to the client.
+	 * 
+	 * @param bytes Sent bytes.
+	 */
+	public void countSent(long bytes) {
+		bytesSent += bytes;
+		Metrics.get().sent(bytes);
+	}
+
+	/**
+	 * Count the bytes received from the client.
+	 * 
+	 * @param bytes Received bytes.
+	 */
+	public void countReceived(long bytes) {
+		bytesReceived += bytes;
+		Metrics.get().received(bytes);
+	}
+
+	/**
+	 * Bytes sent to the client.
+	 * 
+	 * @return Bytes.
+	 */
+	public long getBytesSent() {
+		return bytesSent;
+	}
+
+	/**
+	 * Bytes received from the client.
+	 * 
+	 * @return Bytes.
+	 */
+	public long getBytesReceived() {
+		return bytesReceived;
+	}
+
+	/**
+	 * Empty message buffer of the player, reused between the turns.
+	 * 
+	 * @param capacity Needed size.
+	 * 
+	 * @return Cleared buffer.
+	 */
+	public ByteBuffer getMessage(int capacity) {
+		if (message.capacity() < capacity) {
+			message = ByteBuffer.allocate(Math.max(capacity, 2 * message.capacity()));
+		}
+
+		message.clear();
+
+		return message;
+	}
+
+	/**
+	 * Start the thread of the player, virtual or platform as chosen by
+	 * {@link Threads}.
+	 */
+	public void start() {
+		thread = Threads.create("Player " + name, this);
+		thread.setPriority(Thread.MIN_PRIORITY);
+		thread.start();
+	}
+
+	/**
+	 * Thread of the player.
+	 * 
+	 * @return Thread or null if it is not started.
+	 */
+	public Thread getThread() {
+		return thread;
+	}
+
+	/**
+	 * Play the turns of the player until it is out of the game. The thread
+	 * waits parked while the other players are on turn.
+	 */
+	public void run() {
+		while (game.doTurn(this) == true) {
 		}
 	}
 }
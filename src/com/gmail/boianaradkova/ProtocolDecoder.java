@@ -0,0 +1,400 @@
+/**
+ * Coloring, Version 0.1
+ * New Bulgarian University
+ *
+ * Copyright (c) 2018 Boyana Kantarska
+ */
+
+package com.gmail.boianaradkova;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * Client side reader of the game state messages. The numbers are scanned
+ * directly from the received bytes and the board and the used colors are
+ * reused between the turns, so a turn allocates nothing while the board
+ * keeps its size.
+ *
+ * @author Boyana Kantarska
+ */
+class ProtocolDecoder {
+	/** Stream from the server. */
+	private final InputStream in;
+
+	/** Received bytes. */
+	private final byte buffer[];
+
+	/** Position of the next byte in the buffer. */
+	private int position = 0;
+
+	/** Number of received bytes in the buffer. */
+	private int limit = 0;
+
+	/** Packed cells of a binary frame. */
+	private ByteBuffer packed = ByteBuffer.allocate(0);
+
+	/** Board width. */
+	private int columns = 0;
+
+	/** Board height. */
+	private int rows = 0;
+
+	/** Number of colors on the board. */
+	private int numOfColors = 0;
+
+	/** Number of players. */
+	private int numOfPlayers = 0;
+
+	/** X coordinate of the player, starting from zero. */
+	private int x = 0;
+
+	/** Y coordinate of the player, starting from zero. */
+	private int y = 0;
+
+	/** Colors of the players, valid up to the number of players. */
+	private int usedColors[] = new int[0];
+
+	/** Bit of each used color, the bit of zero is always set. */
+	private long usedBits[] = new long[1];
+
+	/** Number of colors not used by any player. */
+	private int freeColors = 0;
+
+	/** Game board, null before the first full state. */
+	private Board board = null;
+
+	/**
+	 * Constructor.
+	 *
+	 * @param in Stream from the server.
+	 */
+	ProtocolDecoder(InputStream in) {
+		this(in, 64 * 1024);
+	}
+
+	/**
+	 * Constructor with a smaller buffer for many clients in one process.
+	 *
+	 * @param in         Stream from the server.
+	 * @param bufferSize Size of the buffer of the received bytes.
+	 */
+	ProtocolDecoder(InputStream in, int bufferSize) {
+		this.in = in;
+		this.buffer = new byte[bufferSize];
+	}
+
+	/**
+	 * Wait until some bytes of the next game state are received, without
+	 * decoding them. A reader which shares the board with the painting
+	 * waits here before it locks the board.
+	 *
+	 * @throws IOException If the stream is broken or ended.
+	 */
+	public void await() throws IOException {
+		if (position == limit) {
+			limit = in.read(buffer);
+			position = 0;
+
+			if (limit <= 0) {
+				limit = 0;
+				throw new EOFException("Server closed the connection");
+			}
+		}
+	}
+
+	/**
+	 * Next received byte.
+	 *
+	 * @return Byte value.
+	 *
+	 * @throws IOException If the stream is broken or ended.
+	 */
+	private int next() throws IOException {
+		await();
+
+		return buffer[position++];
+	}
+
+	/**
+	 * Next decimal number of the text protocol, skipping the separators.
+	 *
+	 * @return Number.
+	 *
+	 * @throws IOException If the stream is broken or ended.
+	 */
+	private int nextNumber() throws IOException {
+		int c = next();
+		while ((c < '0' || c > '9') && c != '-') {
+			c = next();
+		}
+
+		boolean negative = c == '-';
+		if (negative == true) {
+			c = next();
+		}
+
+		int value = 0;
+		while (c >= '0' && c <= '9') {
+			value = 10 * value + c - '0';
+			c = next();
+		}
+
+		return negative ? -value : value;
+	}
+
+	/**
+	 * Next four byte integer of the binary protocol.
+	 *
+	 * @return Number.
+	 *
+	 * @throws IOException If the stream is broken or ended.
+	 */
+	private int nextInt() throws IOException {
+		return (next() & 0xFF) << 24 | (next() & 0xFF) << 16 | (next() & 0xFF) << 8 | (next() & 0xFF);
+	}
+
+	/**
+	 * Keep the board when the size is the same, otherwise make a new one.
+	 */
+	private void prepareBoard() {
+		if (board == null || board.getColumns() != columns || board.getRows() != rows
+				|| board.getNumOfColors() != numOfColors) {
+			board = Board.blank(columns, rows, numOfColors);
+		}
+
+		if (usedColors.length < numOfPlayers) {
+			usedColors = new int[numOfPlayers];
+		}
+	}
+
+	/**
+	 * Mark the colors of the players in the bit set of the used colors.
+	 */
+	private void markUsedColors() {
+		int words = (numOfColors >>> 6) + 1;
+		if (usedBits.length < words) {
+			usedBits = new long[words];
+		}
+		Arrays.fill(usedBits, 0, words, 0);
+		usedBits[0] = 1;
+
+		freeColors = numOfColors;
+		for (int p = 0; p < numOfPlayers; p++) {
+			int color = usedColors[p];
+
+			if (color < 1 || color > numOfColors || (usedBits[color >>> 6] & 1L << color) != 0) {
+				continue;
+			}
+
+			usedBits[color >>> 6] |= 1L << color;
+			freeColors--;
+		}
+	}
+
+	/**
+	 * Read the next game state message.
+	 *
+	 * @param protocol 1 for full text, 2 for text changes and 3 for binary.
+	 *
+	 * @throws IOException If the stream is broken or ended.
+	 */
+	public void read(int protocol) throws IOException {
+		if (protocol == 3) {
+			readBinary();
+			return;
+		}
+
+		columns = nextNumber();
+		rows = nextNumber();
+		numOfColors = nextNumber();
+		numOfPlayers = nextNumber();
+		x = nextNumber() - 1;
+		y = nextNumber() - 1;
+
+		prepareBoard();
+
+		for (int p = 0; p < numOfPlayers; p++) {
+			usedColors[p] = nextNumber();
+		}
+		markUsedColors();
+
+		if (protocol == 2) {
+			/* Changed spans are applied on the board from the previous turn. */
+			int spans = nextNumber();
+			for (int k = 0; k < spans; k++) {
+				int i = nextNumber() - 1;
+				int j = nextNumber() - 1;
+				int length = nextNumber();
+				int color = nextNumber();
+
+				for (int end = i + length; i < end; i++) {
+					board.setColorIndex(i, j, color);
+				}
+			}
+		} else {
+			for (int j = 0; j < rows; j++) {
+				for (int i = 0; i < columns; i++) {
+					board.setColorIndex(i, j, nextNumber());
+				}
+			}
+		}
+	}
+
+	/**
+	 * Read a binary frame.
+	 *
+	 * @throws IOException If the stream is broken or ended.
+	 */
+	private void readBinary() throws IOException {
+		nextInt();
+		columns = nextInt();
+		rows = nextInt();
+		numOfColors = nextInt();
+		numOfPlayers = nextInt();
+		x = nextInt() - 1;
+		y = nextInt() - 1;
+
+		prepareBoard();
+
+		for (int p = 0; p < numOfPlayers; p++) {
+			usedColors[p] = nextInt();
+		}
+		markUsedColors();
+
+		int size = board.packedSize();
+		if (packed.capacity() < size) {
+			packed = ByteBuffer.allocate(size);
+		}
+		packed.clear();
+
+		while (packed.position() < size) {
+			if (position == limit) {
+				packed.put((byte) next());
+				continue;
+			}
+
+			int length = Math.min(limit - position, size - packed.position());
+			packed.put(buffer, position, length);
+			position += length;
+		}
+
+		packed.flip();
+		board.unpack(packed);
+	}
+
+	/**
+	 * Board width.
+	 *
+	 * @return Width.
+	 */
+	public int getColumns() {
+		return columns;
+	}
+
+	/**
+	 * Board height.
+	 *
+	 * @return Height.
+	 */
+	public int getRows() {
+		return rows;
+	}
+
+	/**
+	 * Number of colors on the board.
+	 *
+	 * @return Number of colors.
+	 */
+	public int getNumOfColors() {
+		return numOfColors;
+	}
+
+	/**
+	 * Number of players.
+	 *
+	 * @return Players.
+	 */
+	public int getNumOfPlayers() {
+		return numOfPlayers;
+	}
+
+	/**
+	 * X coordinate of the player.
+	 *
+	 * @return X coordinate starting from zero.
+	 */
+	public int getX() {
+		return x;
+	}
+
+	/**
+	 * Y coordinate of the player.
+	 *
+	 * @return Y coordinate starting from zero.
+	 */
+	public int getY() {
+		return y;
+	}
+
+	/**
+	 * Colors of the players.
+	 *
+	 * @return Reused array, valid up to the number of players.
+	 */
+	public int[] getUsedColors() {
+		return usedColors;
+	}
+
+	/**
+	 * Number of colors not used by any player.
+	 *
+	 * @return Free colors.
+	 */
+	public int getFreeColors() {
+		return freeColors;
+	}
+
+	/**
+	 * Free color by its place among the free colors, found without trying
+	 * random colors until a free one comes.
+	 *
+	 * @param k Place from zero up to the number of free colors.
+	 *
+	 * @return Color or zero if there is no such free color.
+	 */
+	public int getFreeColor(int k) {
+		int last = numOfColors >>> 6;
+
+		for (int w = 0; w <= last; w++) {
+			long free = ~usedBits[w];
+			if (w == last) {
+				/* Bits over the number of colors are not colors. */
+				free &= -1L >>> (63 - (numOfColors & 63));
+			}
+
+			int count = Long.bitCount(free);
+			if (k < count) {
+				for (; k > 0; k--) {
+					free &= free - 1;
+				}
+				return (w << 6) + Long.numberOfTrailingZeros(free);
+			}
+			k -= count;
+		}
+
+		return 0;
+	}
+
+	/**
+	 * Game board updated by the last message.
+	 *
+	 * @return Reused board.
+	 */
+	public Board getBoard() {
+		return board;
+	}
+}
@@ -8,8 +8,8 @@
 package com.gmail.boianaradkova;
 
 import java.awt.Graphics;
+import java.awt.Rectangle;
 import java.io.BufferedWriter;
-import java.io.DataInputStream;
 import java.io.IOException;
 import java.io.OutputStreamWriter;
 import java.io.PrintWriter;
@@ -28,8 +28,8 @@ public class RandomClient extends JFrame {
 	/** Socket for client-server communication. */
 	private Socket socket = null;
 
-	/** Input stream with information from the server. */
-	private DataInputStream in = null;
+	/** Reader of the messages from the server. */
+	private ProtocolDecoder decoder = null;
 
 	/** Output stream with information for the server. */
 	private PrintWriter out = null;
@@ -43,6 +43,25 @@ public class RandomClient extends JFrame {
 	/** Game board with lock. */
 	private Board board = null;
 
+	/** Lock of the board, held while it is decoded and while it is painted. */
+	private final Object lock = new Object();
+
+	/** Drawing of the board, null before the first game state. */
+	private BoardRenderer renderer = null;
+
+	/** Protocol of the received messages, the first one is always full text. */
+	private int protocol = 1;
+
+	/**
+	 * Protocol asked from the server: 1 full text, 2 changes only, 3 binary.
+	 * On the small boards of the lobby most moves change a large part of the
+	 * board, so the full text is the default.
+	 */
+	private int wanted = Integer.getInteger("coloring.protocol", 1);
+
+	/** Choice of the colors. */
+	private ClientStrategy strategy = new RandomClientStrategy();
+
 	/**
 	 * Constructor.
 	 * 
@@ -69,7 +88,7 @@ public class RandomClient extends JFrame {
 		System.out.println("Client connected ...");
 
 		try {
-			in = new DataInputStream(socket.getInputStream());
+			decoder = new ProtocolDecoder(socket.getInputStream());
 			out = new PrintWriter(new BufferedWriter(new OutputStreamWriter(socket.getOutputStream())), true);
 		} catch (IOException ex) {
 			System.err.println("Input/Output streams are not available form the socket: " + ex.toString());
@@ -94,98 +113,51 @@ public class RandomClient extends JFrame {
 			 */
 			
 			public void run() {
-				String line = "";
-				while (line != null) {
-					int M = 0, N = 0, C = 0, P = 0;
-					int X = 0, Y = 0;
-					int usedColors[] = null;
-					int board[][] = null;
-					
+				boolean connected = true;
+				while (connected == true) {
 					/**
-					 * Enter an empty string that enters in "while" loop.
-					 * Declares the coordinates: M , N , C , P , X , Y and  
-					 * arrays : usedColors[] (sets the use of colors) and
-					 * board[][](two-dimensional array, sets the coordinates
-					 * of the individual customer's board.
+					 * Enter the loop while the server is connected. The decoder
+					 * keeps the board and the used colors between the turns and
+					 * knows which colors are still free.
 					 * 
 					 */
-					
-					try {
-						/* Parsing of the messages in the communication protocol. */
-						line = in.readLine() + " ";
-						M = (new Integer(line.substring(0, line.indexOf(' ')))).intValue();
-						line = line.substring(line.indexOf(' ') + 1);
-						N = (new Integer(line.substring(0, line.indexOf(' ')))).intValue();
-						line = line.substring(line.indexOf(' ') + 1);
-						C = (new Integer(line.substring(0, line.indexOf(' ')))).intValue();
-						
-						line = line.substring(line.indexOf(' ') + 1);
-						P = (new Integer(line.substring(0, line.indexOf(' ')))).intValue();
 
-						line = in.readLine() + " ";
-						X = (new Integer(line.substring(0, line.indexOf(' ')))).intValue() - 1;
-						line = line.substring(line.indexOf(' ') + 1);
-						Y = (new Integer(line.substring(0, line.indexOf(' ')))).intValue() - 1;
+					/* Cells changed by the game state, taken with the board locked. */
+					DirtyBox cells = null;
 
-						/**
-						 * "try" block sets the beginning of the graphic drawing through the defined 
-						 * coordinates and methods:
-						 * readLine- draws according to its set values and transfers to the next line.
-						 * subString- starts at its first index and ends at its predetermined.
-						 * indexOf-returns the index from the first string to the last symbol by 
-						 * setting whit intValues.
-						 * 
-						 */
-						
-						line = in.readLine() + " ";
-						usedColors = new int[P];
-						for (int i = 0; i < P; i++) {
-							usedColors[i] = (new Integer(line.substring(0, line.indexOf(' ')))).intValue();
-							line = line.substring(line.indexOf(' ') + 1);
-						}
-							
-						/**
-						 * Color and graphic drawing are set.
-						 */
-						
-						board = new int[M][N];
-						for (int j = 0; j < N; j++) {
-							line = in.readLine() + " ";
-							for (int i = 0; i < M; i++) {
-								board[i][j] = (new Integer(line.substring(0, line.indexOf(' ')))).intValue();
-								line = line.substring(line.indexOf(' ') + 1);
+					try {
+						/* The board is locked only after the server starts sending. */
+						decoder.await();
+
+						synchronized (lock) {
+							/* Parsing of the messages in the communication protocol. */
+							decoder.read(protocol);
+
+							/* Board is reused by the decoder, a new board is painted whole. */
+							if (RandomClient.this.board != decoder.getBoard()) {
+								RandomClient.this.board = decoder.getBoard();
+								RandomClient.this.board.takeDirty();
+								renderer = new BoardRenderer(RandomClient.this.board);
+								repaint();
 							}
+
+							cells = board.takeDirty();
 						}
-						
-						/**
-						 * In "for" loop the colors and frame for the player are predetermined.
-						 * 		
-						 */
-						
-						/* Board creation. */
-						RandomClient.this.board = new Board(M, N, C, board);
 					} catch (IOException ex) {
 						System.err.println("Incorrect imput data: " + ex.toString());
+						connected = false;
+						continue;
 					}
 
 					/**
 					 * The exception checks for failures of failed or interrupted operations.
-					 * When a problem occurs, a message is printed and returns a string of 
-					 * text information with a correct prefix to the problem.
+					 * When a problem occurs, a message is printed and the loop ends because
+					 * the server is not connected any more.
 					 * 
 					 */
 					
-					int color = 0;
-					boolean done;
-					do {
-						done = true;
-						color = 1 + (int) (Math.random() * C);
-						for (int i = 0; i < P; i++) {
-							if (color == usedColors[i]) {
-								done = false;
-							}
-						}
-					} while (done == false);
+					/* Random color directly among the colors which are not used. */
+					int color = strategy.choose(decoder);
 					
 					/**
 					 *In addition to the exception check, a variable is entered- "color" 
@@ -194,21 +166,20 @@ public class RandomClient extends JFrame {
 					 * 
 					 */
 
-					/* Response from the client to the server. */
-					out.println(color); /* Closing the flow for color printing. */
+					/* Response from the client to the server, asking for the wanted protocol. */
+					out.println(color + " " + wanted); /* Closing the flow for color printing. */
 					out.flush(); /* Close the buffer entry. */
+					protocol = wanted;
 					
-					/* Redraw GUI. */
-					repaint();
+					/* Redraw the changed part of the GUI. */
+					if (cells != null) {
+						Rectangle area = renderer.getArea(cells, getWidth(), getHeight());
+						repaint(area.x, area.y, area.width, area.height);
+					}
 					/**
 					 * A method that controls the update through a cycle retrieves
 					 * the repainting components. 
 					 */
-					
-					try {
-						Thread.sleep(100);
-					} catch (InterruptedException e) {
-					}
 				}
 			}
 		};
@@ -222,11 +193,14 @@ public class RandomClient extends JFrame {
 	 */
 	@Override /* Function allowing the drawing method to be executed. */
 	public void paint(Graphics g) {
-		if (board == null) {
-			return;
-		}
+		/* The decoder changes the board in place, so it is not drawn meanwhile. */
+		synchronized (lock) {
+			if (renderer == null) {
+				return;
+			}
 
-		board.draw(g, this.getWidth(), this.getHeight());
+			renderer.draw(g, this.getWidth(), this.getHeight());
+		}
 	}
 	
 	/**
@@ -238,10 +212,6 @@ public class RandomClient extends JFrame {
 	/** Finalize internal state of the objects. */
 	@Override
 	public void finalize() {
-		try {
-			in.close();
-		} catch (IOException ex) {
-		}
 		out.close();
 		try {
 			socket.close();
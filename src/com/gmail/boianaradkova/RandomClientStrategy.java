@@ -0,0 +1,23 @@
+/**
+ * Coloring, Version 0.1
+ * New Bulgarian University
+ *
+ * Copyright (c) 2018 Boyana Kantarska
+ */
+
+package com.gmail.boianaradkova;
+
+/**
+ * Random choice directly among the colors which are not used by any player.
+ * It keeps no state, so one instance may be shared by many clients.
+ *
+ * @author Boyana Kantarska
+ */
+class RandomClientStrategy implements ClientStrategy {
+	@Override
+	public int choose(ProtocolDecoder state) {
+		int free = state.getFreeColors();
+
+		return free == 0 ? 0 : state.getFreeColor(RandomSource.get().nextInt(free));
+	}
+}
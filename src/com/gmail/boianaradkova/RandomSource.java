@@ -0,0 +1,108 @@
+/**
+ * Coloring, Version 0.1
+ * New Bulgarian University
+ *
+ * Copyright (c) 2018 Boyana Kantarska
+ */
+
+package com.gmail.boianaradkova;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.random.RandomGenerator;
+import java.util.random.RandomGeneratorFactory;
+
+/**
+ * Random generator of each thread, so the threads never share a generator.
+ * The algorithm is chosen by the system property coloring.random (the JDK
+ * name of a generator, SplittableRandom by default). With the property
+ * coloring.seed or after {@link #seed(long)} the generators are seeded, the
+ * n-th generator created after seeding gets the n-th seed of the sequence,
+ * so runs with the same threads repeat the same boards and games.
+ *
+ * @author Boyana Kantarska
+ */
+final class RandomSource {
+	/** Step between the seeds of the generators. */
+	private static final long GOLDEN_GAMMA = 0x9E3779B97F4A7C15L;
+
+	/** Factory of the chosen algorithm. */
+	private static final RandomGeneratorFactory<RandomGenerator> factory = RandomGeneratorFactory
+			.of(System.getProperty("coloring.random", "SplittableRandom"));
+
+	/** Generator of each thread. */
+	private static final ThreadLocal<Stream> streams = ThreadLocal.withInitial(Stream::new);
+
+	/** Number of the generators created after the seeding. */
+	private static final AtomicLong created = new AtomicLong();
+
+	/** Seed of the first generator, null for random seeds. */
+	private static volatile Long seed = Long.getLong("coloring.seed");
+
+	/** Changed by each seeding, so the older generators are replaced. */
+	private static volatile int generation = 0;
+
+	/** Generator of a thread with the seeding it belongs to. */
+	private static final class Stream {
+		/** Seeding of the generator. */
+		private int generation = -1;
+
+		/** The generator. */
+		private RandomGenerator generator = null;
+	}
+
+	/** Utility class. */
+	private RandomSource() {
+	}
+
+	/**
+	 * Seed all generators which are created from now on.
+	 *
+	 * @param seed Seed of the first one.
+	 */
+	static synchronized void seed(long seed) {
+		RandomSource.seed = seed;
+		created.set(0);
+		generation++;
+	}
+
+	/**
+	 * New generator, seeded if a seed is given.
+	 *
+	 * @return Generator.
+	 */
+	static RandomGenerator create() {
+		Long first = seed;
+		if (first == null) {
+			return factory.create();
+		}
+
+		return factory.create(first + GOLDEN_GAMMA * created.getAndIncrement());
+	}
+
+	/**
+	 * New generator with a given seed.
+	 *
+	 * @param seed Seed.
+	 *
+	 * @return Generator.
+	 */
+	static RandomGenerator create(long seed) {
+		return factory.create(seed);
+	}
+
+	/**
+	 * Generator of the current thread.
+	 *
+	 * @return Generator which should not be given to other threads.
+	 */
+	static RandomGenerator get() {
+		Stream stream = streams.get();
+
+		if (stream.generation != generation) {
+			stream.generator = create();
+			stream.generation = generation;
+		}
+
+		return stream.generator;
+	}
+}
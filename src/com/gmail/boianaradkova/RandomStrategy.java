@@ -0,0 +1,40 @@
+/**
+ * Coloring, Version 0.1
+ * New Bulgarian University
+ *
+ * Copyright (c) 2018 Boyana Kantarska
+ */
+
+package com.gmail.boianaradkova;
+
+/**
+ * Random choice among the colors which are not used by the other players,
+ * the same as the strategy of the random client.
+ *
+ * @author Boyana Kantarska
+ */
+class RandomStrategy implements Strategy {
+	/** Free colors, reused between the turns. */
+	private int free[] = new int[0];
+
+	@Override
+	public int choose(Game game, Player player) {
+		int numOfColors = game.getBoard().getNumOfColors();
+		if (free.length < numOfColors) {
+			free = new int[numOfColors];
+		}
+
+		int count = 0;
+		for (int color = 1; color <= numOfColors; color++) {
+			if (game.isColorFree(player, color) == true) {
+				free[count++] = color;
+			}
+		}
+
+		if (count == 0) {
+			return 0;
+		}
+
+		return free[RandomSource.get().nextInt(count)];
+	}
+}
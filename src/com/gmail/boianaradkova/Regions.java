@@ -0,0 +1,288 @@
+/**
+ * Coloring, Version 0.1
+ * New Bulgarian University
+ *
+ * Copyright (c) 2018 Boyana Kantarska
+ */
+
+package com.gmail.boianaradkova;
+
+import java.util.Arrays;
+
+/**
+ * Index of the single colored regions on the board. The cells of each region
+ * are joined in a union-find forest and linked in a circular list, and each
+ * region keeps the roots of its neighbor regions as a frontier. Recoloring a
+ * region touches only its own cells and its frontier, and absorbing a
+ * neighbor is a union instead of a new flood.
+ *
+ * @author Boyana Kantarska
+ */
+final class Regions {
+	/** Cells of the board, kept up to date by the index. */
+	private final Grid grid;
+
+	/** Board width. */
+	private final int columns;
+
+	/** Parent of each cell in the union-find forest. */
+	private final int parent[];
+
+	/** Next cell of the same region in a circular list. */
+	private final int next[];
+
+	/** Number of cells in the region, valid for the roots only. */
+	private final int size[];
+
+	/** Frontier of each region as cells of the neighbor regions. */
+	private final int frontier[][];
+
+	/** Number of used entries in each frontier. */
+	private final int frontierSize[];
+
+	/** Visited marks of the regions during a change. */
+	private final int mark[];
+
+	/** Current visit mark. */
+	private int stamp = 0;
+
+	/** Neighbor regions which keep their color after a change. */
+	private int border[] = new int[16];
+
+	/** Neighbor regions which are absorbed by a change. */
+	private int absorbed[] = new int[16];
+
+	/**
+	 * Find the root of a cell.
+	 *
+	 * @param index Cell index.
+	 *
+	 * @return Root cell index.
+	 */
+	private int find(int index) {
+		while (parent[index] != index) {
+			parent[index] = parent[parent[index]];
+			index = parent[index];
+		}
+
+		return index;
+	}
+
+	/**
+	 * Join two different regions.
+	 *
+	 * @param a Root of the first region.
+	 * @param b Root of the second region.
+	 *
+	 * @return Root of the joined region.
+	 */
+	private int union(int a, int b) {
+		if (size[a] < size[b]) {
+			int swap = a;
+			a = b;
+			b = swap;
+		}
+
+		parent[b] = a;
+		size[a] += size[b];
+
+		int swap = next[a];
+		next[a] = next[b];
+		next[b] = swap;
+
+		return a;
+	}
+
+	/**
+	 * Add a cell to the frontier of a region.
+	 *
+	 * @param root  Root of the region.
+	 * @param index Cell of the neighbor region.
+	 */
+	private void link(int root, int index) {
+		if (frontier[root] == null) {
+			frontier[root] = new int[4];
+		} else if (frontierSize[root] == frontier[root].length) {
+			frontier[root] = Arrays.copyOf(frontier[root], 2 * frontierSize[root]);
+		}
+
+		frontier[root][frontierSize[root]++] = index;
+	}
+
+	/**
+	 * Start a new visit of the regions.
+	 *
+	 * @return Visit mark.
+	 */
+	private int visit() {
+		if (stamp == Integer.MAX_VALUE) {
+			Arrays.fill(mark, 0);
+			stamp = 0;
+		}
+
+		return ++stamp;
+	}
+
+	/**
+	 * Constructor.
+	 *
+	 * @param grid    Cells of the board.
+	 * @param columns Board width.
+	 */
+	Regions(Grid grid, int columns) {
+		this.grid = grid;
+		this.columns = columns;
+
+		int cells = grid.size();
+		parent = new int[cells];
+		next = new int[cells];
+		size = new int[cells];
+		frontier = new int[cells][];
+		frontierSize = new int[cells];
+		mark = new int[cells];
+
+		for (int i = 0; i < cells; i++) {
+			parent[i] = i;
+			next[i] = i;
+			size[i] = 1;
+		}
+
+		/* Join the equal neighbors on the right and below. */
+		for (int i = 0; i < cells; i++) {
+			int color = grid.get(i);
+
+			if (i % columns < columns - 1 && grid.get(i + 1) == color) {
+				int a = find(i);
+				int b = find(i + 1);
+				if (a != b) {
+					union(a, b);
+				}
+			}
+
+			if (i + columns < cells && grid.get(i + columns) == color) {
+				int a = find(i);
+				int b = find(i + columns);
+				if (a != b) {
+					union(a, b);
+				}
+			}
+		}
+
+		/* Different neighbors are on the frontier of each other. */
+		for (int i = 0; i < cells; i++) {
+			if (i % columns < columns - 1 && find(i) != find(i + 1)) {
+				link(find(i), i + 1);
+				link(find(i + 1), i);
+			}
+
+			if (i + columns < cells && find(i) != find(i + columns)) {
+				link(find(i), i + columns);
+				link(find(i + columns), i);
+			}
+		}
+	}
+
+	/**
+	 * Number of cells in the region of a cell.
+	 *
+	 * @param index Cell index.
+	 *
+	 * @return Region size.
+	 */
+	public int size(int index) {
+		return size[find(index)];
+	}
+
+	/**
+	 * Change the color of the region of a cell and absorb the neighbor
+	 * regions with the same color.
+	 *
+	 * @param index Cell index.
+	 * @param color New color.
+	 * @param log   Log of the changed cells or null.
+	 * @param dirty Box of the changed cells.
+	 */
+	public void change(int index, int color, ChangeLog log, DirtyBox dirty) {
+		int root = find(index);
+
+		if (grid.get(root) == color) {
+			return;
+		}
+
+		int i = root;
+		do {
+			grid.set(i, color);
+			if (log != null) {
+				log.add(i);
+			}
+			dirty.add(i % columns, i % columns, i / columns);
+			i = next[i];
+		} while (i != root);
+
+		int stamp = visit();
+		int kept = 0;
+		int taken = 0;
+
+		mark[root] = stamp;
+		for (int k = 0; k < frontierSize[root]; k++) {
+			int r = find(frontier[root][k]);
+
+			if (mark[r] == stamp) {
+				continue;
+			}
+			mark[r] = stamp;
+
+			if (grid.get(r) == color) {
+				if (taken == absorbed.length) {
+					absorbed = Arrays.copyOf(absorbed, 2 * taken);
+				}
+				absorbed[taken++] = r;
+			} else {
+				if (kept == border.length) {
+					border = Arrays.copyOf(border, 2 * kept);
+				}
+				border[kept++] = r;
+			}
+		}
+
+		/* Frontier of the absorbed regions never has the new color. */
+		for (int t = 0; t < taken; t++) {
+			int a = absorbed[t];
+
+			for (int k = 0; k < frontierSize[a]; k++) {
+				int r = find(frontier[a][k]);
+
+				if (mark[r] == stamp) {
+					continue;
+				}
+				mark[r] = stamp;
+
+				if (kept == border.length) {
+					border = Arrays.copyOf(border, 2 * kept);
+				}
+				border[kept++] = r;
+			}
+		}
+
+		int merged = root;
+		for (int t = 0; t < taken; t++) {
+			merged = union(merged, absorbed[t]);
+		}
+
+		int list[] = frontier[merged];
+		if (merged != root || list == null || list.length < kept) {
+			list = new int[Math.max(4, kept)];
+		}
+		System.arraycopy(border, 0, list, 0, kept);
+
+		frontier[root] = null;
+		frontierSize[root] = 0;
+		for (int t = 0; t < taken; t++) {
+			frontier[absorbed[t]] = null;
+			frontierSize[absorbed[t]] = 0;
+		}
+
+		frontier[merged] = list;
+		frontierSize[merged] = kept;
+	}
+}
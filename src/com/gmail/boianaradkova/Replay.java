@@ -0,0 +1,196 @@
+/**
+ * Coloring, Version 0.1
+ * New Bulgarian University
+ *
+ * Copyright (c) 2018 Boyana Kantarska
+ */
+
+package com.gmail.boianaradkova;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+
+/**
+ * Player of a game journal. The journal file is mapped in the memory and
+ * the board of any turn is rebuilt by applying the moves on the initial
+ * board, without players, sockets or timeouts. Copies of the board are
+ * kept on the way, so going back does not start from the beginning.
+ *
+ * @author Boyana Kantarska
+ */
+public class Replay {
+	/** Moves between two kept copies of the board. */
+	private static final int CHECKPOINT = 4096;
+
+	/** Mapped journal. */
+	private final ByteBuffer data;
+
+	/** Position of the first move in the journal. */
+	private final int first;
+
+	/** Number of recorded moves. */
+	private final int moves;
+
+	/** X coordinates of the players in the order of their turns. */
+	private final int x[];
+
+	/** Y coordinates of the players in the order of their turns. */
+	private final int y[];
+
+	/** Boards after each CHECKPOINT moves, starting with the initial one. */
+	private final ArrayList<Board> checkpoints = new ArrayList<>();
+
+	/** Board of the current turn. */
+	private Board board = null;
+
+	/** Number of the moves applied on the board. */
+	private int turn = -1;
+
+	/**
+	 * Constructor.
+	 *
+	 * @param file Journal file.
+	 *
+	 * @throws IOException If the file can not be read or it is not a journal.
+	 */
+	public Replay(Path file) throws IOException {
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+			data = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+		}
+
+		if (data.remaining() < 24 || data.getInt() != Journal.MAGIC || data.getInt() != Journal.VERSION) {
+			throw new IOException("Not a game journal: " + file);
+		}
+
+		int columns = data.getInt();
+		int rows = data.getInt();
+		int numOfColors = data.getInt();
+		int numOfPlayers = data.getInt();
+
+		checkpoints.add(new Board(columns, rows, numOfColors, data));
+
+		x = new int[numOfPlayers];
+		y = new int[numOfPlayers];
+		for (int p = 0; p < numOfPlayers; p++) {
+			x[p] = data.getInt();
+			y[p] = data.getInt();
+		}
+
+		/* A journal of an interrupted game may end inside a record. */
+		first = data.position();
+		moves = (data.limit() - first) / 4;
+	}
+
+	/**
+	 * Number of recorded moves.
+	 *
+	 * @return Moves.
+	 */
+	public int getMoves() {
+		return moves;
+	}
+
+	/**
+	 * Number of players.
+	 *
+	 * @return Players.
+	 */
+	public int getNumOfPlayers() {
+		return x.length;
+	}
+
+	/**
+	 * Player of a move.
+	 *
+	 * @param move Move index from zero.
+	 *
+	 * @return Player index in the order of the turns.
+	 */
+	public int getPlayer(int move) {
+		return data.getInt(first + 4 * move) >>> 17;
+	}
+
+	/**
+	 * Color of a move.
+	 *
+	 * @param move Move index from zero.
+	 *
+	 * @return Received color, the low 16 bits of it for a rejected move.
+	 */
+	public int getColor(int move) {
+		return data.getInt(first + 4 * move) & 0xFFFF;
+	}
+
+	/**
+	 * Check whether a move is applied on the board.
+	 *
+	 * @param move Move index from zero.
+	 *
+	 * @return True for an accepted move and false for a rejected one.
+	 */
+	public boolean isAccepted(int move) {
+		return (data.getInt(first + 4 * move) & Journal.REJECTED) == 0;
+	}
+
+	/**
+	 * Board after a number of moves.
+	 *
+	 * @param turn Number of moves from zero up to the number of the moves.
+	 *
+	 * @return Board which is reused by the following calls.
+	 */
+	public Board getBoard(int turn) {
+		if (turn < 0 || turn > moves) {
+			throw new IndexOutOfBoundsException("Turn " + turn + " of " + moves);
+		}
+
+		/* The nearest kept board is taken if the current one is no closer. */
+		int nearest = Math.min(turn / CHECKPOINT, checkpoints.size() - 1);
+		if (board == null || turn < this.turn || nearest * CHECKPOINT > this.turn) {
+			board = new Board(checkpoints.get(nearest));
+			this.turn = nearest * CHECKPOINT;
+		}
+
+		for (; this.turn < turn; this.turn++) {
+			int record = data.getInt(first + 4 * this.turn);
+
+			if ((record & Journal.REJECTED) == 0) {
+				int p = record >>> 17;
+				board.change(x[p], y[p], record & 0xFFFF);
+			}
+
+			if ((this.turn + 1) % CHECKPOINT == 0 && (this.turn + 1) / CHECKPOINT == checkpoints.size()) {
+				checkpoints.add(new Board(board));
+			}
+		}
+
+		return board;
+	}
+
+	/**
+	 * Main method.
+	 *
+	 * @param args Command line parameters: journal file and optional turn,
+	 *             the last one by default.
+	 */
+	public static void main(String args[]) {
+		try {
+			Replay replay = new Replay(Path.of(args[0]));
+			int turn = args.length > 1 ? Integer.valueOf(args[1]) : replay.getMoves();
+
+			long start = System.nanoTime();
+			Board board = replay.getBoard(turn);
+			double seconds = (System.nanoTime() - start) / 1e9;
+
+			System.out.println(replay.getNumOfPlayers() + " players, " + replay.getMoves() + " moves");
+			System.out.println(turn + " moves replayed in " + seconds + " seconds");
+			System.out.println(board);
+		} catch (IOException ex) {
+			ex.printStackTrace();
+		}
+	}
+}
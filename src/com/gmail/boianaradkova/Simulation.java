@@ -0,0 +1,151 @@
+/**
+ * Coloring, Version 0.1
+ * New Bulgarian University
+ *
+ * Copyright (c) 2018 Boyana Kantarska
+ */
+
+package com.gmail.boianaradkova;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Headless games between simulated players, without sockets, windows or
+ * console output for each turn. A game ends when there is no active player
+ * or after a number of rounds.
+ *
+ * @author Boyana Kantarska
+ */
+public class Simulation {
+	/** Number of players in each game. */
+	private int numOfPlayers = -1;
+
+	/** Longest game in rounds. */
+	private int maxRounds = -1;
+
+	/** Strategy of all players. */
+	private Strategy strategy = null;
+
+	/** A round in which no region grows ends the game. */
+	private boolean stopWithoutGrowth = false;
+
+	/**
+	 * Constructor.
+	 *
+	 * @param numOfPlayers Number of players in each game.
+	 * @param maxRounds    Longest game in rounds.
+	 * @param strategy     Strategy of all players.
+	 */
+	public Simulation(int numOfPlayers, int maxRounds, Strategy strategy) {
+		this.numOfPlayers = numOfPlayers;
+		this.maxRounds = maxRounds;
+		this.strategy = strategy;
+	}
+
+	/**
+	 * End a game after a round in which no region grows, before the limit
+	 * of the rounds. Such games usually go on without any change.
+	 *
+	 * @param stopWithoutGrowth True to end the game without growth.
+	 */
+	public void setStopWithoutGrowth(boolean stopWithoutGrowth) {
+		this.stopWithoutGrowth = stopWithoutGrowth;
+	}
+
+	/**
+	 * Play a whole game.
+	 *
+	 * @return Number of played turns.
+	 */
+	public int playGame() {
+		Game game = new Game();
+		game.setVerbose(false);
+		game.setHeadless(true);
+
+		for (int p = 0; p < numOfPlayers; p++) {
+			Player player = new Player("" + p, null);
+			player.setHeadless(true);
+			game.addPlayer(player);
+		}
+		game.init();
+
+		int turns = 0;
+		for (int round = 0; round < maxRounds; round++) {
+			boolean playing = false;
+			boolean growing = false;
+
+			for (int p = 0; p < game.getPlayers().size(); p++) {
+				Player player = game.getPlayers().elementAt(p);
+
+				if (player.isActive() == false) {
+					continue;
+				}
+
+				/* The scores are measured only for the growth. */
+				int score = stopWithoutGrowth == true ? game.getScore(player) : 0;
+				game.endTurn(player, strategy.choose(game, player));
+				turns++;
+
+				playing = true;
+				if (stopWithoutGrowth == true && game.getScore(player) > score) {
+					growing = true;
+				}
+			}
+
+			if (playing == false || (stopWithoutGrowth == true && growing == false)) {
+				break;
+			}
+		}
+
+		return turns;
+	}
+
+	/**
+	 * Main method. The games end after a round without growth unless
+	 * -Dcoloring.simulation.growth=false is given, then only after 10000
+	 * rounds.
+	 *
+	 * @param args Command line parameters: players in a game, number of games
+	 *             and optional number of threads.
+	 */
+	public static void main(String args[]) {
+		int numOfPlayers = Integer.valueOf(args[0]);
+		int games = Integer.valueOf(args[1]);
+		int threads = args.length > 2 ? Integer.valueOf(args[2]) : 1;
+
+		AtomicLong turns = new AtomicLong();
+		ExecutorService workers = Executors.newFixedThreadPool(threads);
+
+		long start = System.nanoTime();
+		for (int t = 0; t < threads; t++) {
+			int share = games / threads + (t < games % threads ? 1 : 0);
+
+			workers.execute(() -> {
+				Simulation simulation = new Simulation(numOfPlayers, 10000, new RandomStrategy());
+				simulation.setStopWithoutGrowth(
+						Boolean.parseBoolean(System.getProperty("coloring.simulation.growth", "true")));
+
+				long played = 0;
+				for (int g = 0; g < share; g++) {
+					played += simulation.playGame();
+				}
+				turns.addAndGet(played);
+			});
+		}
+
+		workers.shutdown();
+		try {
+			workers.awaitTermination(Long.MAX_VALUE, TimeUnit.DAYS);
+		} catch (InterruptedException ex) {
+			ex.printStackTrace();
+		}
+		double seconds = (System.nanoTime() - start) / 1e9;
+
+		System.out.println(games + " games, " + turns.get() + " turns in " + seconds + " seconds");
+		System.out.println((long) (games / seconds) + " games per second, " + (long) (turns.get() / seconds)
+				+ " turns per second");
+	}
+}
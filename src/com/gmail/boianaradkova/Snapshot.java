@@ -0,0 +1,417 @@
+/**
+ * Coloring, Version 0.1
+ * New Bulgarian University
+ *
+ * Copyright (c) 2018 Boyana Kantarska
+ */
+
+package com.gmail.boianaradkova;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.Vector;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.zip.CRC32;
+
+/**
+ * Checkpoints of a running game in a memory-mapped file. The file has a
+ * header and two slots of the game state which are written in turn: a new
+ * state goes to the slot which is not the latest one, and only after it is
+ * forced to the disk the header points to it, so a crash while writing
+ * leaves the previous state valid.
+ *
+ * The game thread only copies the state in a buffer, the mapped file is
+ * written by a background thread. A checkpoint is skipped while the
+ * previous one is written.
+ *
+ * The header holds the magic number, the version, the size of a slot, the
+ * latest slot or -1 and its sequence number. A slot holds its sequence
+ * number, a CRC-32 of the rest of the slot, M, N, C, P and the index of the
+ * next player, X, Y, color, score and activity of each player and the cells
+ * packed by the board. A game is restored from the valid slot with the
+ * higher sequence number, so a torn slot falls back to the other one.
+ *
+ * @author Boyana Kantarska
+ */
+final class Snapshot {
+	/** First bytes of a snapshot file, "CLRS". */
+	private static final int MAGIC = 0x434C5253;
+
+	/** Version of the format. */
+	private static final int VERSION = 2;
+
+	/** Size of the header. */
+	private static final int HEADER = 64;
+
+	/** Position of the latest slot in the header. */
+	private static final int CURRENT = 12;
+
+	/** Position of the sequence number in the header. */
+	private static final int SEQUENCE = 16;
+
+	/** Position of the checksum in a slot. */
+	private static final int CHECKSUM = 8;
+
+	/** Position of the game state in a slot. */
+	private static final int STATE = 12;
+
+	/** Snapshot file. */
+	private final FileChannel channel;
+
+	/** Turns between two checkpoints. */
+	private final int every;
+
+	/** Mapped file, null before the first checkpoint or restore. */
+	private MappedByteBuffer mapped = null;
+
+	/** Size of a slot of the mapped file. */
+	private int slotSize = 0;
+
+	/** Latest written slot, -1 if there is none. */
+	private int current = -1;
+
+	/** Sequence number of the latest checkpoint. */
+	private long sequence = 0;
+
+	/** A checkpoint of this game is written or restored. */
+	private boolean started = false;
+
+	/** Played turns since the start or the restore. */
+	private int turns = 0;
+
+	/** Game state copied by the game thread. */
+	private ByteBuffer state = ByteBuffer.allocate(0);
+
+	/** True while a checkpoint is written. */
+	private final AtomicBoolean writing = new AtomicBoolean();
+
+	/** Writer of the checkpoints. */
+	private final ExecutorService writer = Executors.newSingleThreadExecutor(task -> {
+		Thread thread = new Thread(task, "snapshot");
+		thread.setDaemon(true);
+		return thread;
+	});
+
+	/**
+	 * Constructor.
+	 *
+	 * @param file  Snapshot file, created if it does not exist.
+	 * @param every Turns between two checkpoints.
+	 *
+	 * @throws IOException If the file can not be opened.
+	 */
+	Snapshot(Path file, int every) throws IOException {
+		this.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+				StandardOpenOption.WRITE);
+		this.every = every;
+	}
+
+	/**
+	 * Snapshot in the file given by the coloring.snapshot system property,
+	 * with a checkpoint each coloring.snapshot.turns turns, 100 by default.
+	 *
+	 * @return Snapshot or null if the checkpoints are not kept or the file
+	 *         can not be opened.
+	 */
+	static Snapshot forGame() {
+		String file = System.getProperty("coloring.snapshot");
+		if (file == null) {
+			return null;
+		}
+
+		try {
+			return new Snapshot(Path.of(file), Math.max(1, Integer.getInteger("coloring.snapshot.turns", 100)));
+		} catch (IOException ex) {
+			System.err.println("Snapshots are not kept: " + ex.toString());
+			return null;
+		}
+	}
+
+	/**
+	 * Map the file for slots of a given size. A file with other slots is
+	 * started again.
+	 *
+	 * @param size Size of a slot.
+	 *
+	 * @throws IOException If the file can not be mapped.
+	 */
+	private void map(int size) throws IOException {
+		if (mapped != null && slotSize == size) {
+			return;
+		}
+
+		if (channel.size() != HEADER + 2L * size) {
+			channel.truncate(0);
+		}
+		mapped = channel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER + 2L * size);
+
+		if (mapped.getInt(0) != MAGIC || mapped.getInt(8) != size) {
+			mapped.putInt(0, MAGIC);
+			mapped.putInt(4, VERSION);
+			mapped.putInt(8, size);
+			mapped.putInt(CURRENT, -1);
+			mapped.putLong(SEQUENCE, 0);
+		}
+
+		slotSize = size;
+		current = mapped.getInt(CURRENT);
+		sequence = mapped.getLong(SEQUENCE);
+	}
+
+	/**
+	 * Count a played turn and take a checkpoint after each given number of
+	 * turns. Called by the thread on turn after the move.
+	 *
+	 * @param game Game after the move.
+	 */
+	public void turn(Game game) {
+		turns++;
+
+		if (turns % every == 0) {
+			save(game);
+		}
+	}
+
+	/**
+	 * Take a checkpoint of the game, unless the previous one is still
+	 * written.
+	 *
+	 * @param game Game between two turns.
+	 */
+	public void save(Game game) {
+		if (writing.compareAndSet(false, true) == false) {
+			return;
+		}
+
+		Board board = game.getBoard();
+		List<Player> players = game.getPlayers();
+
+		int size = STATE + 4 * (5 + 5 * players.size()) + board.packedSize();
+		if (state.capacity() != size) {
+			state = ByteBuffer.allocate(size);
+		}
+		state.clear();
+
+		state.putLong(0);
+		state.putInt(0);
+		state.putInt(board.getColumns());
+		state.putInt(board.getRows());
+		state.putInt(board.getNumOfColors());
+		state.putInt(players.size());
+		state.putInt((game.getPlayingIndex() + 1) % players.size());
+
+		for (Player player : players) {
+			state.putInt(player.getX());
+			state.putInt(player.getY());
+			state.putInt(player.getColor());
+			state.putInt(game.getScore(player));
+			state.putInt(player.isActive() == true ? 1 : 0);
+		}
+
+		board.pack(state);
+		state.flip();
+
+		writer.execute(() -> {
+			try {
+				write(size);
+			} catch (IOException ex) {
+				System.err.println("Snapshot is not written: " + ex.toString());
+			}
+			writing.set(false);
+		});
+	}
+
+	/**
+	 * Write the copied state in the older slot and then point the header
+	 * to it.
+	 *
+	 * @param size Size of the state.
+	 *
+	 * @throws IOException If the file can not be mapped.
+	 */
+	private void write(int size) throws IOException {
+		map(size);
+
+		/* The slots of an earlier game in the file are not restored any more. */
+		if (started == false) {
+			mapped.putLong(HEADER, 0);
+			mapped.putLong(HEADER + slotSize, 0);
+			mapped.force(HEADER, 2 * slotSize);
+			current = -1;
+			started = true;
+		}
+
+		int slot = current == 0 ? 1 : 0;
+		int position = HEADER + slot * slotSize;
+
+		state.putLong(0, sequence + 1);
+		state.putInt(CHECKSUM, checksum(state));
+		mapped.put(position, state, 0, size);
+		mapped.force(position, size);
+
+		mapped.putInt(CURRENT, slot);
+		mapped.putLong(SEQUENCE, sequence + 1);
+		mapped.force(0, HEADER);
+
+		current = slot;
+		sequence++;
+	}
+
+	/**
+	 * Checksum of a slot, of its sequence number and its game state.
+	 *
+	 * @param slot Slot with the position and the limit at its bounds.
+	 *
+	 * @return CRC-32 value.
+	 */
+	private static int checksum(ByteBuffer slot) {
+		CRC32 crc = new CRC32();
+
+		crc.update(slot.slice(0, CHECKSUM));
+		crc.update(slot.slice(STATE, slot.limit() - STATE));
+
+		return (int) crc.getValue();
+	}
+
+	/**
+	 * Latest valid state in the file.
+	 *
+	 * @return State after the checksum or null if there is none.
+	 *
+	 * @throws IOException If the file can not be mapped.
+	 */
+	private ByteBuffer latest() throws IOException {
+		if (channel.size() < HEADER) {
+			return null;
+		}
+
+		ByteBuffer header = ByteBuffer.allocate(HEADER);
+		channel.read(header, 0);
+		header.flip();
+
+		int size = header.getInt(8);
+		int latest = header.getInt(CURRENT);
+		if (header.getInt(0) != MAGIC || header.getInt(4) != VERSION || size <= 0
+				|| channel.size() != HEADER + 2L * size || latest < 0 || latest > 1) {
+			return null;
+		}
+
+		map(size);
+
+		/* The header may point to a torn slot, the other one is tried too. */
+		ByteBuffer slot = null;
+		for (int s = 0; s < 2; s++) {
+			ByteBuffer candidate = mapped.slice(HEADER + s * slotSize, slotSize);
+			long number = candidate.getLong(0);
+
+			if (number > 0 && candidate.getInt(CHECKSUM) == checksum(candidate)
+					&& (slot == null || number > slot.getLong(0))) {
+				slot = candidate;
+				current = s;
+			}
+		}
+		if (slot == null) {
+			return null;
+		}
+
+		sequence = Math.max(sequence, slot.getLong(0));
+		started = true;
+
+		return slot.position(STATE);
+	}
+
+	/**
+	 * Continue the game of the latest checkpoint. The connected players take
+	 * the slots of the active players in the order of the turns, the slots
+	 * without a player are out of the game and the players over the slots
+	 * are disconnected.
+	 *
+	 * @param game Game with the connected players.
+	 *
+	 * @return True if the game is restored and false if there is no
+	 *         checkpoint.
+	 */
+	public boolean restore(Game game) {
+		ByteBuffer slot;
+		try {
+			slot = latest();
+		} catch (IOException ex) {
+			System.err.println("Snapshot is not read: " + ex.toString());
+			return false;
+		}
+		if (slot == null) {
+			return false;
+		}
+
+		int columns = slot.getInt();
+		int rows = slot.getInt();
+		int numOfColors = slot.getInt();
+		int numOfPlayers = slot.getInt();
+		int next = slot.getInt();
+
+		Vector<Player> connected = new Vector<>(game.getPlayers());
+		game.getPlayers().clear();
+
+		int c = 0;
+		for (int p = 0; p < numOfPlayers; p++) {
+			int x = slot.getInt();
+			int y = slot.getInt();
+			int color = slot.getInt();
+			int score = slot.getInt();
+			boolean active = slot.getInt() == 1;
+
+			Player player;
+			if (active == true && c < connected.size()) {
+				player = connected.elementAt(c++);
+				player.init(x, y, color);
+			} else {
+				player = new Player("" + p, null);
+				player.init(x, y, color);
+				player.setNotActive();
+			}
+			player.setScore(score);
+
+			game.addPlayer(player);
+		}
+
+		/* Nobody is waiting for the clients over the slots. */
+		for (; c < connected.size(); c++) {
+			connected.elementAt(c).close();
+		}
+
+		game.resume(new Board(columns, rows, numOfColors, slot), next);
+
+		System.out.println("Game resumed from checkpoint " + sequence + " ...");
+
+		return true;
+	}
+
+	/** Wait for the last checkpoint and mark the game as finished. */
+	public void close() {
+		writer.shutdown();
+		try {
+			writer.awaitTermination(1, TimeUnit.MINUTES);
+		} catch (InterruptedException ex) {
+			Thread.currentThread().interrupt();
+		}
+
+		if (mapped != null) {
+			mapped.putInt(CURRENT, -1);
+			mapped.force(0, HEADER);
+		}
+
+		try {
+			channel.close();
+		} catch (IOException ex) {
+			System.err.println("Snapshot is not closed: " + ex.toString());
+		}
+	}
+}
@@ -0,0 +1,25 @@
+/**
+ * Coloring, Version 0.1
+ * New Bulgarian University
+ *
+ * Copyright (c) 2018 Boyana Kantarska
+ */
+
+package com.gmail.boianaradkova;
+
+/**
+ * Playing strategy of a player simulated inside the server.
+ *
+ * @author Boyana Kantarska
+ */
+interface Strategy {
+	/**
+	 * Choose the next color of a player.
+	 *
+	 * @param game   Game state.
+	 * @param player Player on turn.
+	 *
+	 * @return Chosen color.
+	 */
+	int choose(Game game, Player player);
+}
@@ -0,0 +1,77 @@
+/**
+ * Coloring, Version 0.1
+ * New Bulgarian University
+ *
+ * Copyright (c) 2018 Boyana Kantarska
+ */
+
+package com.gmail.boianaradkova;
+
+import java.lang.reflect.Method;
+
+/**
+ * Threads of the player sessions and the accept loops. With the system
+ * property coloring.threads=virtual they are virtual threads, so many
+ * blocked clients do not need as many operating system threads. The
+ * virtual threads are reached by reflection, because the project is built
+ * for a JDK without them, and platform threads are used where they are
+ * missing.
+ *
+ * @author Boyana Kantarska
+ */
+final class Threads {
+	/** Thread.ofVirtual(), null if the JDK has no virtual threads. */
+	private static final Method ofVirtual;
+
+	/** Thread.Builder.unstarted(Runnable). */
+	private static final Method unstarted;
+
+	/** Virtual threads are asked and available. */
+	private static final boolean virtual;
+
+	static {
+		Method builder = null, thread = null;
+
+		try {
+			builder = Thread.class.getMethod("ofVirtual");
+			thread = Class.forName("java.lang.Thread$Builder").getMethod("unstarted", Runnable.class);
+		} catch (ReflectiveOperationException ex) {
+			builder = null;
+		}
+
+		ofVirtual = builder;
+		unstarted = thread;
+
+		boolean asked = "virtual".equalsIgnoreCase(System.getProperty("coloring.threads"));
+		if (asked == true && ofVirtual == null) {
+			System.err.println("Virtual threads are not supported by this JDK, platform threads are used.");
+		}
+		virtual = asked == true && ofVirtual != null;
+	}
+
+	/** Utility class. */
+	private Threads() {
+	}
+
+	/**
+	 * New thread which is not started yet.
+	 *
+	 * @param name Thread name.
+	 * @param task Work of the thread.
+	 *
+	 * @return Virtual or platform thread.
+	 */
+	static Thread create(String name, Runnable task) {
+		if (virtual == true) {
+			try {
+				Thread thread = (Thread) unstarted.invoke(ofVirtual.invoke(null), task);
+				thread.setName(name);
+				return thread;
+			} catch (ReflectiveOperationException ex) {
+				System.err.println("Virtual thread failed: " + ex);
+			}
+		}
+
+		return new Thread(task, name);
+	}
+}
@@ -0,0 +1,329 @@
+/**
+ * Coloring, Version 0.1
+ * New Bulgarian University
+ *
+ * Copyright (c) 2018 Boyana Kantarska
+ */
+
+package com.gmail.boianaradkova;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Parallel flooding of very large boards. The board is split into square
+ * tiles and the flooding goes in rounds: each tile with seeds is filled on
+ * the common fork-join pool, only inside its own cells, and the cells of
+ * the region found over the tile borders become the seeds of the neighbor
+ * tiles in the next round. The rounds end when no tile has seeds.
+ *
+ * A tile reads the border cells of its neighbors while they may be filled
+ * at the same time. Such a cell is seen with the old color or the new one;
+ * an old color gives a seed which is checked again in the next round, and
+ * a new color means the neighbor tile has reached the cell itself.
+ *
+ * @author Boyana Kantarska
+ */
+final class TileFlood {
+	/** Boards with at least so many cells are flooded in parallel. */
+	static final int PARALLEL_CELLS = Integer.getInteger("coloring.flood.parallel", 1 << 20);
+
+	/** Width and height of a tile. */
+	private static final int TILE = 256;
+
+	/** Cells of the board. */
+	private final Grid grid;
+
+	/** Board width. */
+	private final int columns;
+
+	/** Board height. */
+	private final int rows;
+
+	/** Tiles in a row of tiles. */
+	private final int tilesX;
+
+	/** Seed cells of each tile for the next round. */
+	private final int seeds[][];
+
+	/** Number of seeds of each tile. */
+	private final int seedCount[];
+
+	/** Fill of one tile in a round. */
+	private final class Part {
+		/** Tile index. */
+		private final int tile;
+
+		/** Filled cells. */
+		private int cells[] = new int[64];
+
+		/** Number of filled cells. */
+		private int size = 0;
+
+		/** Seeds outside of the tile. */
+		private int out[] = new int[16];
+
+		/** Number of seeds outside of the tile. */
+		private int outSize = 0;
+
+		/** Work stack of seeds inside the tile. */
+		private int stack[] = new int[64];
+
+		/** Changed columns and rows. */
+		private int left = Integer.MAX_VALUE, right = -1, top = Integer.MAX_VALUE, bottom = -1;
+
+		/**
+		 * Constructor.
+		 *
+		 * @param tile Tile index.
+		 */
+		Part(int tile) {
+			this.tile = tile;
+		}
+
+		/**
+		 * Remember a seed outside of the tile.
+		 *
+		 * @param index Cell index.
+		 */
+		private void seed(int index) {
+			if (outSize == out.length) {
+				out = Arrays.copyOf(out, 2 * outSize);
+			}
+			out[outSize++] = index;
+		}
+
+		/**
+		 * Scanline flooding inside the tile.
+		 *
+		 * @param from     Seeds of the tile.
+		 * @param count    Number of seeds.
+		 * @param oldColor Old color which should be replaced.
+		 * @param newColor New color for replacement.
+		 */
+		private void fill(int from[], int count, int oldColor, int newColor) {
+			int tileLeft = tile % tilesX * TILE;
+			int tileRight = Math.min(columns, tileLeft + TILE) - 1;
+			int tileTop = tile / tilesX * TILE;
+			int tileBottom = Math.min(rows, tileTop + TILE) - 1;
+
+			int depth = 0;
+			for (int s = 0; s < count; s++) {
+				depth = push(depth, from[s]);
+			}
+
+			while (depth > 0) {
+				int index = stack[--depth];
+
+				if (grid.get(index) != oldColor) {
+					continue;
+				}
+
+				int y = index / columns;
+				int start = y * columns + tileLeft;
+				int end = y * columns + tileRight;
+
+				int first = index;
+				while (first > start && grid.get(first - 1) == oldColor) {
+					first--;
+				}
+
+				int last = index;
+				while (last < end && grid.get(last + 1) == oldColor) {
+					last++;
+				}
+
+				/* The span goes on in the tiles on the left and on the right. */
+				if (first == start && tileLeft > 0 && grid.get(first - 1) == oldColor) {
+					seed(first - 1);
+				}
+				if (last == end && tileRight < columns - 1 && grid.get(last + 1) == oldColor) {
+					seed(last + 1);
+				}
+
+				left = Math.min(left, first - y * columns);
+				right = Math.max(right, last - y * columns);
+				top = Math.min(top, y);
+				bottom = Math.max(bottom, y);
+
+				boolean above = false;
+				boolean below = false;
+				for (int i = first; i <= last; i++) {
+					grid.set(i, newColor);
+					if (size == cells.length) {
+						cells = Arrays.copyOf(cells, 2 * size);
+					}
+					cells[size++] = i;
+
+					if (y > 0) {
+						if (grid.get(i - columns) != oldColor) {
+							above = false;
+						} else if (above == false) {
+							if (y > tileTop) {
+								depth = push(depth, i - columns);
+							} else {
+								seed(i - columns);
+							}
+							above = true;
+						}
+					}
+
+					if (y < rows - 1) {
+						if (grid.get(i + columns) != oldColor) {
+							below = false;
+						} else if (below == false) {
+							if (y < tileBottom) {
+								depth = push(depth, i + columns);
+							} else {
+								seed(i + columns);
+							}
+							below = true;
+						}
+					}
+				}
+			}
+		}
+
+		/**
+		 * Push a seed on the work stack.
+		 *
+		 * @param depth Current stack size.
+		 * @param index Cell index.
+		 *
+		 * @return New stack size.
+		 */
+		private int push(int depth, int index) {
+			if (depth == stack.length) {
+				stack = Arrays.copyOf(stack, 2 * depth);
+			}
+			stack[depth] = index;
+
+			return depth + 1;
+		}
+	}
+
+	/**
+	 * Constructor.
+	 *
+	 * @param grid    Cells of the board.
+	 * @param columns Board width.
+	 */
+	TileFlood(Grid grid, int columns) {
+		this.grid = grid;
+		this.columns = columns;
+		this.rows = grid.size() / columns;
+		this.tilesX = (columns + TILE - 1) / TILE;
+
+		int tiles = tilesX * ((rows + TILE - 1) / TILE);
+		seeds = new int[tiles][];
+		seedCount = new int[tiles];
+	}
+
+	/**
+	 * Check whether a board is flooded faster by tiles than by one thread.
+	 * A single worker only pays for the rounds, so the tiles need at least
+	 * two of them.
+	 *
+	 * @param cells Number of cells of the board.
+	 *
+	 * @return True if the board should be flooded by tiles.
+	 */
+	static boolean isWorth(int cells) {
+		return cells >= PARALLEL_CELLS && ForkJoinPool.getCommonPoolParallelism() > 1;
+	}
+
+	/**
+	 * Tile of a cell.
+	 *
+	 * @param index Cell index.
+	 *
+	 * @return Tile index.
+	 */
+	private int tileOf(int index) {
+		return index / columns / TILE * tilesX + index % columns / TILE;
+	}
+
+	/**
+	 * Add a seed to the next round.
+	 *
+	 * @param active Tiles with seeds.
+	 * @param count  Number of tiles with seeds.
+	 * @param index  Cell index.
+	 *
+	 * @return New number of tiles with seeds.
+	 */
+	private int addSeed(int active[], int count, int index) {
+		int tile = tileOf(index);
+
+		if (seedCount[tile] == 0) {
+			active[count++] = tile;
+		}
+		if (seeds[tile] == null) {
+			seeds[tile] = new int[16];
+		} else if (seedCount[tile] == seeds[tile].length) {
+			seeds[tile] = Arrays.copyOf(seeds[tile], 2 * seedCount[tile]);
+		}
+		seeds[tile][seedCount[tile]++] = index;
+
+		return count;
+	}
+
+	/**
+	 * Change the color of the region of a cell.
+	 *
+	 * @param index Cell index.
+	 * @param color New color.
+	 * @param log   Log of the changed cells or null.
+	 * @param dirty Box of the changed cells or null.
+	 *
+	 * @return Number of changed cells.
+	 */
+	public int change(int index, int color, ChangeLog log, DirtyBox dirty) {
+		int oldColor = grid.get(index);
+		if (oldColor == color) {
+			return 0;
+		}
+
+		int changed = 0;
+
+		int active[] = new int[seeds.length];
+		int count = addSeed(active, 0, index);
+
+		while (count > 0) {
+			int round[] = Arrays.copyOf(active, count);
+
+			Part parts[] = Arrays.stream(round).parallel().mapToObj(tile -> {
+				Part part = new Part(tile);
+				part.fill(seeds[tile], seedCount[tile], oldColor, color);
+				return part;
+			}).toArray(Part[]::new);
+
+			/* Seeds are collected after the round, when no tile is filled. */
+			for (int tile : round) {
+				seedCount[tile] = 0;
+			}
+
+			count = 0;
+			for (Part part : parts) {
+				changed += part.size;
+				for (int i = 0; i < part.size; i++) {
+					if (log != null) {
+						log.add(part.cells[i]);
+					}
+				}
+				if (dirty != null && part.bottom >= 0) {
+					dirty.add(part.left, part.right, part.top);
+					dirty.add(part.left, part.right, part.bottom);
+				}
+
+				for (int i = 0; i < part.outSize; i++) {
+					if (grid.get(part.out[i]) == oldColor) {
+						count = addSeed(active, count, part.out[i]);
+					}
+				}
+			}
+		}
+
+		return changed;
+	}
+}
@@ -0,0 +1,106 @@
+/**
+ * Coloring, Version 0.1
+ * New Bulgarian University
+ *
+ * Copyright (c) 2018 Boyana Kantarska
+ */
+
+package com.gmail.boianaradkova;
+
+import java.util.List;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Round robin order of the player threads. Only the thread on turn runs,
+ * the others are parked, and at the end of a turn exactly the next active
+ * player is woken up. The turn index is volatile, so everything done in a
+ * turn is visible to the thread of the next turn without locks.
+ *
+ * @author Boyana Kantarska
+ */
+final class TurnScheduler {
+	/** Players in the order of their turns, each one with its own thread. */
+	private final List<Player> players;
+
+	/** Index of the player on turn, -1 when there is no active player. */
+	private volatile int turn = 0;
+
+	/**
+	 * Constructor. The first player in the order is on turn.
+	 *
+	 * @param players Players in the order of their turns.
+	 */
+	TurnScheduler(List<Player> players) {
+		this(players, 0);
+	}
+
+	/**
+	 * Constructor for a resumed game.
+	 *
+	 * @param players Players in the order of their turns.
+	 * @param first   Index of the player who should be on turn, the next
+	 *                active one if it is not active.
+	 */
+	TurnScheduler(List<Player> players, int first) {
+		this.players = players;
+
+		turn = -1;
+		for (int p = 0; p < players.size(); p++) {
+			if (players.get((first + p) % players.size()).isActive() == true) {
+				turn = (first + p) % players.size();
+				break;
+			}
+		}
+	}
+
+	/**
+	 * Wait for the turn of a player.
+	 *
+	 * @param player Player thread which waits.
+	 *
+	 * @return True when the player is on turn and false if the game is over or
+	 *         the thread is interrupted.
+	 */
+	public boolean await(Player player) {
+		int index = players.indexOf(player);
+
+		while (turn != index) {
+			if (turn == -1 || Thread.interrupted() == true) {
+				return false;
+			}
+
+			LockSupport.park(this);
+		}
+
+		return true;
+	}
+
+	/**
+	 * Finish the turn of a player and wake up the next active player.
+	 *
+	 * @param player Player on turn.
+	 *
+	 * @return True if a player is on turn and false if the game is over.
+	 */
+	public boolean handoff(Player player) {
+		int index = players.indexOf(player);
+
+		for (int p = 1; p <= players.size(); p++) {
+			int next = (index + p) % players.size();
+
+			if (players.get(next).isActive() == true) {
+				turn = next;
+				LockSupport.unpark(players.get(next).getThread());
+				return true;
+			}
+		}
+
+		/* Nobody is left, the waiting threads should end. */
+		turn = -1;
+		for (Player other : players) {
+			LockSupport.unpark(other.getThread());
+		}
+
+		return false;
+	}
+}
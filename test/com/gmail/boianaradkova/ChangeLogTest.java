@@ -0,0 +1,80 @@
+/**
+ * Coloring, Version 0.1
+ * New Bulgarian University
+ *
+ * Copyright (c) 2018 Boyana Kantarska
+ */
+
+package com.gmail.boianaradkova;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.util.Arrays;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Changed cells read back from the log of a board.
+ *
+ * @author Boyana Kantarska
+ */
+class ChangeLogTest {
+	/** Changes since a mark are sorted and without repeats. */
+	@Test
+	void sinceMarkIsSortedAndDistinct() {
+		ChangeLog log = new ChangeLog();
+		log.add(7);
+		long mark = log.mark();
+
+		log.add(5);
+		log.add(3);
+		log.add(5);
+		log.add(9);
+
+		assertArrayEquals(new int[] { 3, 5, 9 }, log.since(mark));
+		assertArrayEquals(new int[] { 3, 5, 7, 9 }, log.since(0));
+		assertArrayEquals(new int[0], log.since(log.mark()));
+	}
+
+	/** Marks keep counting after a trim and the dropped ones are unknown. */
+	@Test
+	void trimDropsOlderMarks() {
+		ChangeLog log = new ChangeLog();
+		for (int i = 0; i < 100; i++) {
+			log.add(i);
+		}
+
+		log.trim(60);
+
+		assertEquals(100, log.mark());
+		assertNull(log.since(59));
+		assertArrayEquals(new int[] { 60, 61 }, Arrays.copyOf(log.since(60), 2));
+		assertEquals(40, log.since(60).length);
+
+		log.add(1);
+		assertArrayEquals(new int[] { 1 }, log.since(100));
+	}
+
+	/** A mark after the last entry is not one of this log. */
+	@Test
+	void futureMarkIsUnknown() {
+		ChangeLog log = new ChangeLog();
+		log.add(1);
+
+		assertNull(log.since(log.mark() + 1));
+	}
+
+	/** A move on a tracked board logs the recolored cells. */
+	@Test
+	void boardLogsFloodedCells() {
+		Board board = new Board(4, 1, 3, new int[][] { { 1 }, { 1 }, { 2 }, { 1 } });
+		board.setTracking(true);
+		long mark = board.getChanges().mark();
+
+		board.change(0, 0, 2);
+
+		assertArrayEquals(new int[] { 0, 1 }, board.getChanges().since(mark));
+	}
+}
@@ -0,0 +1,141 @@
+/**
+ * Coloring, Version 0.1
+ * New Bulgarian University
+ *
+ * Copyright (c) 2018 Boyana Kantarska
+ */
+
+package com.gmail.boianaradkova;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.util.Vector;
+import java.util.random.RandomGenerator;
+
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+/**
+ * Game states of the server decoded by the client in each protocol.
+ *
+ * @author Boyana Kantarska
+ */
+class ProtocolTest {
+	/** Stream of the last message of the server to one client. */
+	private static final class Feed extends InputStream {
+		/** Message which is not read yet. */
+		private ByteBuffer message = ByteBuffer.allocate(0);
+
+		@Override
+		public int read() {
+			return message.hasRemaining() == true ? message.get() & 0xFF : -1;
+		}
+
+		@Override
+		public int read(byte buffer[], int offset, int length) {
+			if (message.hasRemaining() == false) {
+				return -1;
+			}
+
+			length = Math.min(length, message.remaining());
+			message.get(buffer, offset, length);
+
+			return length;
+		}
+	}
+
+	/**
+	 * Play a game in which every client asks for the protocol after the
+	 * first full state and check each decoded state against the server.
+	 *
+	 * @param protocol Protocol asked by the clients.
+	 *
+	 * @throws IOException If a message can not be decoded.
+	 */
+	@ParameterizedTest
+	@ValueSource(ints = { 1, 2, 3 })
+	void decodedStateMatchesServer(int protocol) throws IOException {
+		RandomGenerator random = RandomSource.create(protocol);
+
+		Game game = new Game();
+		game.setVerbose(false);
+		for (int p = 0; p < 3; p++) {
+			game.addPlayer(new Player("" + p, null));
+		}
+		game.init(new Board(23, 17, 9, random));
+
+		Vector<Player> players = game.getPlayers();
+		Feed feeds[] = new Feed[players.size()];
+		ProtocolDecoder decoders[] = new ProtocolDecoder[players.size()];
+		for (int p = 0; p < players.size(); p++) {
+			feeds[p] = new Feed();
+			/* A small buffer splits the messages over many reads. */
+			decoders[p] = new ProtocolDecoder(feeds[p], 16);
+		}
+
+		for (int turn = 0; turn < 120; turn++) {
+			int p = turn % players.size();
+			Player player = players.elementAt(p);
+			int sent = player.getProtocol();
+
+			feeds[p].message = game.beginTurn(player);
+			decoders[p].read(sent);
+
+			/* The first state of each client is always full text. */
+			assertEquals(turn < players.size() ? 1 : protocol, sent);
+			assertState(game, player, decoders[p]);
+
+			int color = decoders[p].getFreeColor(random.nextInt(decoders[p].getFreeColors()));
+			assertTrue(game.endTurn(player, player.parseReply(color + " " + protocol)));
+		}
+	}
+
+	/**
+	 * Check a decoded state against the game.
+	 *
+	 * @param game    Game on the server.
+	 * @param player  Player on turn.
+	 * @param decoder Decoder of the client of the player.
+	 */
+	private static void assertState(Game game, Player player, ProtocolDecoder decoder) {
+		Board board = game.getBoard();
+		Vector<Player> players = game.getPlayers();
+
+		assertEquals(board.getColumns(), decoder.getColumns());
+		assertEquals(board.getRows(), decoder.getRows());
+		assertEquals(board.getNumOfColors(), decoder.getNumOfColors());
+		assertEquals(players.size(), decoder.getNumOfPlayers());
+		assertEquals(player.getX(), decoder.getX());
+		assertEquals(player.getY(), decoder.getY());
+
+		for (int p = 0; p < players.size(); p++) {
+			assertEquals(players.elementAt(p).getColor(), decoder.getUsedColors()[p]);
+		}
+
+		assertArrayEquals(cells(board), cells(decoder.getBoard()));
+	}
+
+	/**
+	 * Colors of all cells row by row.
+	 *
+	 * @param board Board.
+	 *
+	 * @return Colors.
+	 */
+	static int[] cells(Board board) {
+		int cells[] = new int[board.getColumns() * board.getRows()];
+
+		for (int j = 0; j < board.getRows(); j++) {
+			for (int i = 0; i < board.getColumns(); i++) {
+				cells[j * board.getColumns() + i] = board.getColorIndex(i, j);
+			}
+		}
+
+		return cells;
+	}
+}
@@ -0,0 +1,90 @@
+/**
+ * Coloring, Version 0.1
+ * New Bulgarian University
+ *
+ * Copyright (c) 2018 Boyana Kantarska
+ */
+
+package com.gmail.boianaradkova;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Vector;
+import java.util.random.RandomGenerator;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Boards rebuilt from a game journal compared with the live board.
+ *
+ * @author Boyana Kantarska
+ */
+class ReplayTest {
+	/** Moves of the game, more than two replay checkpoints. */
+	private static final int MOVES = 10000;
+
+	/**
+	 * Record a game with a rejected move and replay every turn of it, also
+	 * going back over the checkpoints.
+	 *
+	 * @param directory Temporary directory of the journal.
+	 *
+	 * @throws IOException If the journal can not be written or read.
+	 */
+	@Test
+	void replayMatchesLiveBoard(@TempDir Path directory) throws IOException {
+		RandomGenerator random = RandomSource.create(11);
+		Path file = directory.resolve("game.journal");
+		Journal journal = new Journal(file);
+
+		Game game = new Game();
+		game.setVerbose(false);
+		game.setJournal(journal);
+		for (int p = 0; p < 3; p++) {
+			game.addPlayer(new Player("" + p, null));
+		}
+		game.init(new Board(12, 9, 7, random));
+
+		Vector<Player> players = game.getPlayers();
+		int boards[][] = new int[MOVES + 1][];
+		boards[0] = ProtocolTest.cells(game.getBoard());
+
+		for (int move = 0, p = 0; move < MOVES; p = (p + 1) % players.size()) {
+			Player player = players.elementAt(p);
+			if (player.isActive() == false) {
+				continue;
+			}
+
+			int color;
+			if (move == MOVES / 2) {
+				/* The color of the next player is not a valid move. */
+				color = players.elementAt((p + 1) % players.size()).getColor();
+			} else {
+				do {
+					color = 1 + random.nextInt(game.getBoard().getNumOfColors());
+				} while (game.isColorFree(player, color) == false);
+			}
+
+			game.endTurn(player, color);
+			boards[++move] = ProtocolTest.cells(game.getBoard());
+		}
+		journal.close();
+
+		Replay replay = new Replay(file);
+		assertEquals(MOVES, replay.getMoves());
+		assertEquals(players.size(), replay.getNumOfPlayers());
+		assertFalse(replay.isAccepted(MOVES / 2));
+
+		for (int turn = 0; turn <= MOVES; turn++) {
+			assertArrayEquals(boards[turn], ProtocolTest.cells(replay.getBoard(turn)), "Turn " + turn);
+		}
+		for (int turn = MOVES; turn >= 0; turn -= 1237) {
+			assertArrayEquals(boards[turn], ProtocolTest.cells(replay.getBoard(turn)), "Turn " + turn);
+		}
+	}
+}
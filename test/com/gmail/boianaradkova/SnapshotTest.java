@@ -0,0 +1,209 @@
+/**
+ * Coloring, Version 0.1
+ * New Bulgarian University
+ *
+ * Copyright (c) 2018 Boyana Kantarska
+ */
+
+package com.gmail.boianaradkova;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assertions.fail;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Vector;
+import java.util.random.RandomGenerator;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Games restored from the checkpoints of a snapshot file.
+ *
+ * @author Boyana Kantarska
+ */
+class SnapshotTest {
+	/** Size of the file header. */
+	private static final int HEADER = 64;
+
+	/** Players of each game. */
+	private static final int PLAYERS = 3;
+
+	/** Random moves of the test games. */
+	private final RandomGenerator random = RandomSource.create(5);
+
+	/**
+	 * New game with players without connections.
+	 *
+	 * @return Game.
+	 */
+	private static Game game() {
+		Game game = new Game();
+		game.setVerbose(false);
+		for (int p = 0; p < PLAYERS; p++) {
+			game.addPlayer(new Player("" + p, null));
+		}
+
+		return game;
+	}
+
+	/**
+	 * Play random valid moves.
+	 *
+	 * @param game  Game.
+	 * @param moves Number of moves.
+	 */
+	private void play(Game game, int moves) {
+		Vector<Player> players = game.getPlayers();
+
+		for (int move = 0; move < moves; move++) {
+			Player player = players.elementAt((game.getPlayingIndex() + 1) % players.size());
+
+			int color;
+			do {
+				color = 1 + random.nextInt(game.getBoard().getNumOfColors());
+			} while (game.isColorFree(player, color) == false);
+
+			game.endTurn(player, color);
+		}
+	}
+
+	/**
+	 * Wait until the background writer points the header to a checkpoint.
+	 *
+	 * @param file     Snapshot file.
+	 * @param sequence Sequence number of the checkpoint.
+	 *
+	 * @throws IOException          If the file can not be read.
+	 * @throws InterruptedException If the wait is interrupted.
+	 */
+	private static void awaitCheckpoint(Path file, long sequence) throws IOException, InterruptedException {
+		long deadline = System.nanoTime() + 10_000_000_000L;
+
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+			ByteBuffer header = ByteBuffer.allocate(HEADER);
+			while (System.nanoTime() < deadline) {
+				header.clear();
+				channel.read(header, 0);
+				if (header.position() == HEADER && header.getLong(16) >= sequence) {
+					return;
+				}
+				Thread.sleep(10);
+			}
+		}
+
+		fail("Checkpoint " + sequence + " is not written");
+	}
+
+	/**
+	 * Flip a byte of the packed cells of the latest slot.
+	 *
+	 * @param file Snapshot file.
+	 *
+	 * @throws IOException If the file can not be changed.
+	 */
+	private static void tearLatest(Path file) throws IOException {
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+			ByteBuffer header = ByteBuffer.allocate(HEADER);
+			channel.read(header, 0);
+
+			int size = header.getInt(8);
+			long last = HEADER + (long) header.getInt(12) * size + size - 1;
+
+			ByteBuffer cell = ByteBuffer.allocate(1);
+			channel.read(cell, last);
+			cell.put(0, (byte) ~cell.get(0));
+			cell.rewind();
+			channel.write(cell, last);
+		}
+	}
+
+	/**
+	 * Restored game has the board, the players and the next player of the
+	 * checkpoint.
+	 *
+	 * @param directory Temporary directory of the snapshot.
+	 *
+	 * @throws Exception If the file can not be used.
+	 */
+	@Test
+	void restoresSavedGame(@TempDir Path directory) throws Exception {
+		Path file = directory.resolve("game.snapshot");
+		Snapshot snapshot = new Snapshot(file, 100);
+
+		Game game = game();
+		game.init(new Board(15, 11, 6, random));
+		play(game, 40);
+		snapshot.save(game);
+		awaitCheckpoint(file, 1);
+
+		Game restored = game();
+		assertTrue(new Snapshot(file, 100).restore(restored));
+
+		assertArrayEquals(ProtocolTest.cells(game.getBoard()), ProtocolTest.cells(restored.getBoard()));
+		assertEquals((game.getPlayingIndex() + 1) % PLAYERS, restored.getPlayingIndex());
+		for (int p = 0; p < PLAYERS; p++) {
+			Player saved = game.getPlayers().elementAt(p);
+			Player player = restored.getPlayers().elementAt(p);
+
+			assertEquals(saved.getX(), player.getX());
+			assertEquals(saved.getY(), player.getY());
+			assertEquals(saved.getColor(), player.getColor());
+			assertEquals(game.getScore(saved), restored.getScore(player));
+		}
+
+		/* A finished game is not continued. */
+		snapshot.close();
+		assertFalse(new Snapshot(file, 100).restore(game()));
+	}
+
+	/**
+	 * A torn latest slot falls back to the older checkpoint and two torn
+	 * slots restore nothing.
+	 *
+	 * @param directory Temporary directory of the snapshot.
+	 *
+	 * @throws Exception If the file can not be used.
+	 */
+	@Test
+	void tornSlotFallsBack(@TempDir Path directory) throws Exception {
+		Path file = directory.resolve("game.snapshot");
+		Snapshot snapshot = new Snapshot(file, 100);
+
+		Game game = game();
+		game.init(new Board(15, 11, 6, random));
+		play(game, 20);
+		snapshot.save(game);
+		awaitCheckpoint(file, 1);
+		int older[] = ProtocolTest.cells(game.getBoard());
+
+		play(game, 20);
+		snapshot.save(game);
+		awaitCheckpoint(file, 2);
+
+		tearLatest(file);
+		Game restored = game();
+		assertTrue(new Snapshot(file, 100).restore(restored));
+		assertArrayEquals(older, ProtocolTest.cells(restored.getBoard()));
+
+		/* The header still points to the torn slot, so the older one is torn too. */
+		ByteBuffer header = ByteBuffer.allocate(HEADER);
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+			channel.read(header, 0);
+			header.putInt(12, 1 - header.getInt(12));
+			header.flip();
+			channel.write(header, 0);
+		}
+		tearLatest(file);
+		assertFalse(new Snapshot(file, 100).restore(game()));
+
+		snapshot.close();
+	}
+}